@@ -0,0 +1,33 @@
+package rootheart.codes.sudoku;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The boards that ship with the benchmarks, one file per grade. All boards have exactly one solution. The easy,
+ * medium and hard boards are the minimal boards with 23, 13 and 7 cells of their solution added.
+ */
+public final class Corpus {
+    public static final String EASY = "easy";
+    public static final String MEDIUM = "medium";
+    public static final String HARD = "hard";
+    public static final String MINIMAL = "minimal";
+
+    private Corpus() {
+    }
+
+    public static List<String> load(String grade) {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + grade + ".txt");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+            return reader.lines().filter(line -> !line.isEmpty()).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
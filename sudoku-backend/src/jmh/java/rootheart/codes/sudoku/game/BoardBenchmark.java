@@ -0,0 +1,26 @@
+package rootheart.codes.sudoku.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rootheart.codes.sudoku.Corpus;
+
+@State(Scope.Thread)
+public class BoardBenchmark {
+    @Param({Corpus.EASY, Corpus.MINIMAL})
+    private String grade;
+
+    private String board;
+
+    @Setup
+    public void setUp() {
+        board = Corpus.load(grade).get(0);
+    }
+
+    @Benchmark
+    public Board construct() {
+        return new Board(board);
+    }
+}
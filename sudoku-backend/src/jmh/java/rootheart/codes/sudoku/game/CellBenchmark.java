@@ -0,0 +1,64 @@
+package rootheart.codes.sudoku.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rootheart.codes.sudoku.Corpus;
+
+/**
+ * Runs one technique on one empty cell of a freshly constructed board. Every invocation is rolled back, so all
+ * invocations see the same candidates; the score includes the cost of the mark and the rollback.
+ */
+@State(Scope.Thread)
+public class CellBenchmark {
+    @Param({Corpus.MEDIUM, Corpus.MINIMAL})
+    private String grade;
+
+    @Param({"0", "40", "80"})
+    private int cellIndex;
+
+    private Board board;
+    private Cell cell;
+
+    @Setup
+    public void setUp() {
+        board = new Board(Corpus.load(grade).get(0));
+        int index = cellIndex;
+        while (!board.cell(index).isEmpty()) {
+            index = (index + 1) % 81;
+        }
+        cell = board.cell(index);
+    }
+
+    @Benchmark
+    public void eliminateLockedCandidates() {
+        int mark = board.mark();
+        try {
+            cell.eliminateLockedCandidates();
+        } finally {
+            board.rollback(mark);
+        }
+    }
+
+    @Benchmark
+    public void revealHiddenSingle() {
+        int mark = board.mark();
+        try {
+            cell.revealHiddenSingle();
+        } finally {
+            board.rollback(mark);
+        }
+    }
+
+    @Benchmark
+    public void eliminateNakedTwins() {
+        int mark = board.mark();
+        try {
+            cell.eliminateNakedTwins();
+        } finally {
+            board.rollback(mark);
+        }
+    }
+}
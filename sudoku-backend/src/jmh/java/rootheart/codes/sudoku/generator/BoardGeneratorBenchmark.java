@@ -0,0 +1,39 @@
+package rootheart.codes.sudoku.generator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Measures how many unique boards a single thread generates per second. Run it with {@code -t} to see how the
+ * throughput scales with the number of threads, the generator is shared between them.
+ */
+@State(Scope.Benchmark)
+public class BoardGeneratorBenchmark {
+    @Param({"0", "30"})
+    private int clues;
+
+    @Param({"NONE", "ROTATIONAL"})
+    private BoardGenerator.Symmetry symmetry;
+
+    private BoardGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new BoardGenerator(3, clues, symmetry);
+    }
+
+    @Benchmark
+    public String generate(RandomState state) {
+        return generator.generateBoardString(state.random);
+    }
+
+    @State(Scope.Thread)
+    public static class RandomState {
+        private final Random random = new Random();
+    }
+}
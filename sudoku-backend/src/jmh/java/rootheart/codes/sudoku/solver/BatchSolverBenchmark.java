@@ -0,0 +1,60 @@
+package rootheart.codes.sudoku.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import rootheart.codes.sudoku.Corpus;
+import rootheart.codes.sudoku.game.BoardNotation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solves one grade of the corpus with the {@link BatchSolver}, and board by board with the {@link BitboardSolver} for
+ * comparison. The boards of the grade are repeated to {@value #BOARDS} boards, one full batch, and both variants
+ * produce a {@link SolveResult} per board. The score is per board.
+ */
+@State(Scope.Thread)
+public class BatchSolverBenchmark {
+    private static final int BOARDS = 256;
+
+    @Param({Corpus.EASY, Corpus.MEDIUM, Corpus.HARD, Corpus.MINIMAL})
+    private String grade;
+
+    private final List<String> boards = new ArrayList<>();
+    private final BatchSolver batchSolver = new BatchSolver();
+    private final BitboardSolver bitboardSolver = new BitboardSolver();
+    private final int[] numbers = new int[81];
+
+    @Setup
+    public void setUp() {
+        List<String> corpus = Corpus.load(grade);
+        for (int index = 0; index < BOARDS; index++) {
+            boards.add(corpus.get(index % corpus.size()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public List<SolveResult> batch() {
+        return batchSolver.solve(boards);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public void bitboard(Blackhole blackhole) {
+        for (String board : boards) {
+            for (int cellIndex = 0; cellIndex < numbers.length; cellIndex++) {
+                numbers[cellIndex] = BoardNotation.numberOf(board.charAt(cellIndex));
+            }
+            int count = bitboardSolver.countSolutions(3, numbers, 2);
+            blackhole.consume(count == 1 ? SolveResult.solved(BitboardSolver.toBoardString(numbers))
+                    : SolveResult.of(count == 0 ? SolveResult.Status.NO_SOLUTION
+                    : SolveResult.Status.MULTIPLE_SOLUTIONS));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package rootheart.codes.sudoku.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+public class NumberSetBenchmark {
+    private NumberSet numbers;
+    private NumberSet others;
+
+    @Setup
+    public void setUp() {
+        numbers = new NumberSet(1, 3, 4, 7, 9);
+        others = new NumberSet(2, 3, 9);
+    }
+
+    @Benchmark
+    public NumberSet copy() {
+        return new NumberSet(numbers);
+    }
+
+    @Benchmark
+    public int getCount() {
+        return numbers.getCount();
+    }
+
+    @Benchmark
+    public int getFirst() {
+        return numbers.getFirst();
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return numbers.contains(7);
+    }
+
+    @Benchmark
+    public boolean containsAny() {
+        return numbers.containsAny(others);
+    }
+
+    @Benchmark
+    public NumberSet removeAll() {
+        NumberSet copy = new NumberSet(numbers);
+        copy.removeAll(others);
+        return copy;
+    }
+
+    @Benchmark
+    public void forEach(Blackhole blackhole) {
+        numbers.forEach(blackhole::consume);
+    }
+}
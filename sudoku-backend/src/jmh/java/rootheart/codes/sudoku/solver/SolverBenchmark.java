@@ -0,0 +1,50 @@
+package rootheart.codes.sudoku.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import rootheart.codes.sudoku.Corpus;
+import rootheart.codes.sudoku.game.Board;
+
+import java.util.List;
+
+/**
+ * Solves all boards of one grade of the corpus, including the construction of each {@link Board}. The score is per
+ * board, every grade has {@value #BOARDS_PER_GRADE} boards.
+ */
+@State(Scope.Thread)
+public class SolverBenchmark {
+    private static final int BOARDS_PER_GRADE = 5;
+
+    @Param({Corpus.EASY, Corpus.MEDIUM, Corpus.HARD, Corpus.MINIMAL})
+    private String grade;
+
+    @Param({"CELLS", "BITBOARD", "DANCING_LINKS"})
+    private Solver.Engine engine;
+
+    private List<String> boards;
+    private Solver solver;
+
+    @Setup
+    public void setUp() {
+        boards = Corpus.load(grade);
+        if (boards.size() != BOARDS_PER_GRADE) {
+            throw new IllegalStateException("expected " + BOARDS_PER_GRADE + " boards for grade " + grade);
+        }
+        solver = new Solver(engine);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS_PER_GRADE)
+    public void solve(Blackhole blackhole) {
+        for (String boardString : boards) {
+            Board board = new Board(boardString);
+            solver.solve(board);
+            blackhole.consume(board);
+        }
+    }
+}
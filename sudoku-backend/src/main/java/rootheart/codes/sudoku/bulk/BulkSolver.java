@@ -0,0 +1,174 @@
+package rootheart.codes.sudoku.bulk;
+
+import lombok.RequiredArgsConstructor;
+import rootheart.codes.sudoku.game.BoardNotation;
+import rootheart.codes.sudoku.solver.BitboardSolver;
+import rootheart.codes.sudoku.solver.BoardInvalidException;
+import rootheart.codes.sudoku.solver.SolveResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves a file with one board per line, in the format that {@code Board(String)} accepts, and writes one line per
+ * board with either the solution or the {@link SolveResult.Status} of the board. The input is memory mapped chunk by
+ * chunk, chunks end at line boundaries and are solved in parallel. At most two chunks per thread are in flight, and
+ * the results are written in input order, so memory use does not depend on the size of the file.
+ */
+@RequiredArgsConstructor
+public class BulkSolver {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final int threads;
+    private final int chunkSize;
+
+    private final ThreadLocal<ChunkSolver> chunkSolvers = ThreadLocal.withInitial(ChunkSolver::new);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BulkSolver <input file> <output file> [threads]");
+            System.exit(1);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        new BulkSolver(threads, DEFAULT_CHUNK_SIZE).solve(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    public void solve(Path input, Path output) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            Deque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+            long size = in.size();
+            for (long position = 0; position < size; ) {
+                MappedByteBuffer chunk = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, size - position));
+                int length = position + chunk.limit() == size ? chunk.limit() : lastLineEnd(chunk);
+                chunk.limit(length);
+                position += length;
+
+                if (pending.size() == 2 * threads) {
+                    write(out, pending.removeFirst());
+                }
+                pending.addLast(executor.submit(() -> chunkSolvers.get().solve(chunk)));
+            }
+            while (!pending.isEmpty()) {
+                write(out, pending.removeFirst());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int lastLineEnd(ByteBuffer chunk) {
+        for (int i = chunk.limit() - 1; i >= 0; i--) {
+            if (chunk.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("line is longer than the chunk size of " + chunkSize + " bytes");
+    }
+
+    private void write(FileChannel out, Future<ByteBuffer> result) throws IOException {
+        ByteBuffer buffer;
+        try {
+            buffer = result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Solves the lines of one chunk. Every worker thread has its own instance, so the solver and the buffers are
+     * reused for all chunks of that thread.
+     */
+    private static class ChunkSolver {
+        private final BitboardSolver solver = new BitboardSolver();
+        private int[] numbers = new int[81];
+        private byte[] output = new byte[DEFAULT_CHUNK_SIZE];
+        private int outputLength;
+
+        ByteBuffer solve(ByteBuffer chunk) {
+            outputLength = 0;
+            int lineStart = 0;
+            for (int i = 0; i < chunk.limit(); i++) {
+                if (chunk.get(i) == '\n') {
+                    solveLine(chunk, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < chunk.limit()) {
+                solveLine(chunk, lineStart, chunk.limit());
+            }
+            return ByteBuffer.wrap(Arrays.copyOf(output, outputLength));
+        }
+
+        private void solveLine(ByteBuffer chunk, int start, int end) {
+            if (end > start && chunk.get(end - 1) == '\r') {
+                end--;
+            }
+            int length = end - start;
+            int size = (int) Math.round(Math.sqrt(Math.sqrt(length)));
+            if (size < BoardNotation.MIN_SIZE || size > BoardNotation.MAX_SIZE || size * size * size * size != length) {
+                append(SolveResult.Status.INVALID);
+                return;
+            }
+            if (numbers.length != length) {
+                numbers = new int[length];
+            }
+            for (int i = 0; i < length; i++) {
+                numbers[i] = BoardNotation.numberOf((char) chunk.get(start + i));
+            }
+            int count;
+            try {
+                count = solver.countSolutions(size, numbers, 2);
+            } catch (BoardInvalidException e) {
+                append(SolveResult.Status.INVALID);
+                return;
+            }
+            if (count == 0) {
+                append(SolveResult.Status.NO_SOLUTION);
+            } else if (count > 1) {
+                append(SolveResult.Status.MULTIPLE_SOLUTIONS);
+            } else {
+                ensureCapacity(length + 1);
+                for (int number : numbers) {
+                    output[outputLength++] = (byte) BoardNotation.characterOf(number);
+                }
+                output[outputLength++] = '\n';
+            }
+        }
+
+        private void append(SolveResult.Status status) {
+            byte[] bytes = status.name().getBytes(StandardCharsets.US_ASCII);
+            ensureCapacity(bytes.length + 1);
+            System.arraycopy(bytes, 0, output, outputLength, bytes.length);
+            outputLength += bytes.length;
+            output[outputLength++] = '\n';
+        }
+
+        private void ensureCapacity(int additionalBytes) {
+            if (outputLength + additionalBytes > output.length) {
+                output = Arrays.copyOf(output, Math.max(output.length * 2, outputLength + additionalBytes));
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package rootheart.codes.sudoku.game;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the games that are being played in memory, so that a move does not go to the database. The changes are
+ * written behind: every {@code flush-interval-millis} the dirty games are written, each in its own transaction, and a
+ * game that is evicted, because it was idle for {@code idle-seconds} or because there are more than
+ * {@code maximum-size} active games, is written while it is evicted, before it can be loaded again. On shutdown all
+ * dirty games are written, so at most the changes of one flush interval are lost if the application stops without
+ * shutting down.
+ * <p>
+ * A game is written and loaded with its write lock, so a game that is evicted or loaded while its changes are being
+ * written waits until they are in the database. A game whose changes could not be written while it was evicted stays
+ * in memory as unwritten; it is written again with every flush, and it is taken back instead of being loaded while it
+ * is unwritten.
+ */
+@Slf4j
+@Component
+public class ActiveGames {
+    private static final int WRITE_LOCK_STRIPES = 64;
+
+    private final GameRepository gameRepository;
+    private final GameJournal gameJournal;
+    private final long flushIntervalMillis;
+    private final Cache<Long, Game> games;
+    private final Map<Long, Game> unwrittenGames = new ConcurrentHashMap<>();
+    /** Striped by game id, the write locks are taken before the lock of a game. */
+    private final Object[] writeLocks = new Object[WRITE_LOCK_STRIPES];
+    private final ScheduledExecutorService flushExecutor;
+
+    public ActiveGames(GameRepository gameRepository,
+                       GameJournal gameJournal,
+                       @Value("${sudoku.active-games.maximum-size:10000}") long maximumSize,
+                       @Value("${sudoku.active-games.idle-seconds:900}") long idleSeconds,
+                       @Value("${sudoku.active-games.flush-interval-millis:1000}") long flushIntervalMillis) {
+        this.gameRepository = gameRepository;
+        this.gameJournal = gameJournal;
+        this.flushIntervalMillis = flushIntervalMillis;
+        games = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(idleSeconds, TimeUnit.SECONDS)
+                .writer(new CacheWriter<Long, Game>() {
+                    @Override
+                    public void write(Long gameId, Game game) {
+                    }
+
+                    @Override
+                    public void delete(Long gameId, Game game, RemovalCause cause) {
+                        if (game != null) {
+                            close(game);
+                        }
+                    }
+                })
+                .build();
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "active-games-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        flushExecutor.scheduleWithFixedDelay(this::flushAndEvictIdle, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(flushIntervalMillis, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    /**
+     * Returns the active game of the player with the given id, loaded from the database if it is not active, or null
+     * if the player has no such game. Changes to the game must be made with the lock of the game, and only if the game
+     * is not {@link #isClosed closed}.
+     */
+    public Game get(long playerId, long id) {
+        Game game = games.get(id, gameId -> load(playerId, gameId));
+        if (game == null || game.getPlayer().getId() != playerId) {
+            return null;
+        }
+        return game;
+    }
+
+    /**
+     * Makes a new game active, the game must have been saved.
+     */
+    public void add(Game game) {
+        gameJournal.load(game);
+        games.put(game.getId(), game);
+    }
+
+    /**
+     * Returns whether the game was evicted while the caller waited for its lock.
+     */
+    public boolean isClosed(Game game) {
+        return game.getJournal().closed;
+    }
+
+    /**
+     * Writes all dirty games and the games that could not be written when they were evicted. A game that cannot be
+     * written keeps its changes for the next flush and does not keep the other games from being written.
+     */
+    public void flush() {
+        for (Game game : games.asMap().values()) {
+            write(game, false);
+        }
+        for (Game game : unwrittenGames.values()) {
+            synchronized (writeLock(game.getId())) {
+                if (write(game, true)) {
+                    unwrittenGames.remove(game.getId(), game);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes and evicts a game, e.g. to load it from the database again.
+     */
+    public void evict(long id) {
+        games.invalidate(id);
+    }
+
+    private void flushAndEvictIdle() {
+        try {
+            games.cleanUp();
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Could not flush the active games", e);
+        }
+    }
+
+    private Game load(long playerId, long id) {
+        synchronized (writeLock(id)) {
+            Game game = unwrittenGames.get(id);
+            if (game != null) {
+                if (game.getPlayer().getId() != playerId) {
+                    return null;
+                }
+                unwrittenGames.remove(id);
+                synchronized (game) {
+                    game.getJournal().closed = false;
+                }
+                return game;
+            }
+            game = gameRepository.findByIdAndPlayerId(id, playerId);
+            if (game != null) {
+                gameJournal.load(game);
+            }
+            return game;
+        }
+    }
+
+    private void close(Game game) {
+        synchronized (writeLock(game.getId())) {
+            synchronized (game) {
+                game.getJournal().closed = true;
+            }
+            if (!write(game, true)) {
+                unwrittenGames.put(game.getId(), game);
+            }
+        }
+    }
+
+    /**
+     * Writes the changes of a game if it is dirty and closed or not as given, with the write lock of the game. Returns
+     * false if the changes could not be written, they are given back to the game then.
+     */
+    private boolean write(Game game, boolean closed) {
+        synchronized (writeLock(game.getId())) {
+            JournalFlush flush;
+            synchronized (game) {
+                JournalBuffer journal = game.getJournal();
+                if (journal.closed != closed || !journal.dirty) {
+                    return true;
+                }
+                flush = journal.takeChanges(game);
+            }
+            try {
+                gameJournal.write(flush);
+                return true;
+            } catch (RuntimeException e) {
+                synchronized (game) {
+                    game.getJournal().giveBack(flush);
+                }
+                log.error("Could not write the changes of game {}", game.getId(), e);
+                return false;
+            }
+        }
+    }
+
+    private Object writeLock(long gameId) {
+        return writeLocks[(int) Math.floorMod(gameId, (long) WRITE_LOCK_STRIPES)];
+    }
+}
@@ -1,25 +1,47 @@
 package rootheart.codes.sudoku.game;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
+import rootheart.codes.sudoku.solver.NoSolutionException;
 import rootheart.codes.sudoku.solver.NumberSet;
+import rootheart.codes.sudoku.solver.SolverStatistics;
+import rootheart.codes.sudoku.solver.Technique;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
+import java.util.EnumSet;
 import java.util.Set;
-import java.util.stream.IntStream;
 
 public class Board {
+    private static final Technique[] TECHNIQUES = Technique.values();
+    private static final Technique[] UNIT_TECHNIQUES =
+            Arrays.copyOfRange(TECHNIQUES, Technique.HIDDEN_PAIRS.ordinal(), TECHNIQUES.length);
+
+    @Getter
     private int size;
+    @Getter
     private int maxValue;
+    @Getter(AccessLevel.PACKAGE)
+    private BoardTopology topology;
+    private Cell[] cells;
     private Group[] columns;
     private Group[] rows;
     private Group[] blocks;
-    private final NumberSet possibleValues = new NumberSet();
-    private final Set<Cell> singleCandidates = new HashSet<>();
-    private final List<Cell> fixedCells = new ArrayList<>(100);
-    private final List<Cell> emptyCells = new ArrayList<>(100);
+    private final Trail trail = new Trail();
+    private Cell[] emptyCells;
+    private int emptyCellCount;
+    private Cell[] buckets;
+    private Group[] dirtyGroups;
+    private int dirtyGroupHead;
+    private int dirtyGroupCount;
+    /**
+     * Collects the work of the cell techniques while set; {@code null} unless statistics were asked for.
+     */
+    @Getter
+    @Setter
+    private SolverStatistics statistics;
+    private int enabledTechniques = (1 << TECHNIQUES.length) - 1;
+    private UnitTechniques unitTechniques;
 
     public Board() {
         this("0".repeat(81));
@@ -29,66 +51,264 @@ public class Board {
         set(board);
     }
 
+    private Board(BoardTopology topology) {
+        createCells(topology);
+    }
+
+    /**
+     * Creates an independent board with the same numbers and the same remaining candidates.
+     */
+    public Board copy() {
+        Board copy = new Board(topology);
+        for (Cell cell : cells) {
+            Cell copiedCell = copy.cells[cell.getIndex()];
+            copiedCell.restore(cell.getCandidates().getBinaryEncodedNumbers(), cell.getNumber(),
+                    cell.isSingleCandidate(), 0);
+        }
+        for (int i = 0; i < emptyCellCount; i++) {
+            copy.addEmptyCell(copy.cells[emptyCells[i].getIndex()]);
+        }
+        copy.addAllDirtyGroups();
+        copy.enabledTechniques = enabledTechniques;
+        return copy;
+    }
+
+    /**
+     * Replaces the board with the given one in {@link BoardNotation}. Boards with blocks of size 2 to 5 are supported,
+     * that is 16, 81, 256 or 625 cells.
+     */
     public void set(String board) {
-        if (board.length() == 16) {
-            size = 2;
-        } else if (board.length() == 81) {
-            size = 3;
+        createCells(BoardTopology.forSize(BoardNotation.sizeOf(board.length())));
+        setNumbers(board);
+    }
+
+    /**
+     * Chooses the techniques used to eliminate candidates, all are enabled by default. {@link Technique#NAKED_SINGLE}
+     * is always enabled.
+     */
+    public void setTechniques(Set<Technique> techniques) {
+        enabledTechniques = 1 << Technique.NAKED_SINGLE.ordinal();
+        for (Technique technique : techniques) {
+            enabledTechniques |= 1 << technique.ordinal();
+        }
+    }
+
+    public Set<Technique> getTechniques() {
+        Set<Technique> techniques = EnumSet.noneOf(Technique.class);
+        for (Technique technique : TECHNIQUES) {
+            if (isEnabled(technique)) {
+                techniques.add(technique);
+            }
+        }
+        return techniques;
+    }
+
+    public boolean isEnabled(Technique technique) {
+        return (enabledTechniques & 1 << technique.ordinal()) != 0;
+    }
+
+    public void setSingleCandidates() {
+        for (int i = emptyCellCount - 1; i >= 0; i--) {
+            Cell cell = emptyCells[i];
+            if (cell.isSingleCandidate()) {
+                if (cell.getCandidates().getCount() == 0) {
+                    throw new NoSolutionException("no candidate left for a single candidate cell");
+                }
+                place(cell, cell.getCandidates().getFirst());
+            }
+        }
+    }
+
+    /**
+     * Sets the number of an empty cell and removes it from the candidates of its buddy cells.
+     */
+    public void place(Cell cell, int number) {
+        cell.setNumber(number);
+        cell.keepOnlyCandidate(number);
+        if (statistics == null) {
+            cell.removeNumberFromBuddyCells();
         } else {
-            throw new IllegalArgumentException(board);
+            statistics.run(Technique.NAKED_SINGLE, cell::removeNumberFromBuddyCells);
         }
-        maxValue = size * size;
-        columns = new Group[maxValue];
-        rows = new Group[maxValue];
-        blocks = new Group[maxValue];
-        for (int i = 0; i < maxValue; i++) {
-            columns[i] = new Group(maxValue);
-            rows[i] = new Group(maxValue);
-            blocks[i] = new Group(maxValue);
+        Cell last = emptyCells[--emptyCellCount];
+        emptyCells[cell.getEmptyCellIndex()] = last;
+        last.setEmptyCellIndex(cell.getEmptyCellIndex());
+        emptyCells[emptyCellCount] = cell;
+        cell.setEmptyCellIndex(emptyCellCount);
+    }
+
+    /**
+     * Starts recording changes, so that {@link #rollback(int)} can restore the current state of the board later.
+     * Marks must be rolled back in reverse order.
+     */
+    public int mark() {
+        return trail.mark(emptyCellCount);
+    }
+
+    public void rollback(int mark) {
+        clearDirtyGroups();
+        emptyCellCount = trail.getEmptyCellCount(mark);
+        trail.rollback(mark);
+    }
+
+    void save(Cell cell) {
+        trail.save(cell);
+    }
+
+    /**
+     * Called when candidates of a cell were removed. The groups of the cell are queued, because the techniques of the
+     * other cells in these groups may now eliminate more candidates.
+     */
+    void candidatesChanged(Cell cell, int previousCandidates) {
+        if (statistics != null) {
+            statistics.candidatesEliminated(
+                    Integer.bitCount(previousCandidates & ~cell.getCandidates().getBinaryEncodedNumbers()));
         }
+        cellChanged(cell);
+        addDirtyGroup(cell.getColumn());
+        addDirtyGroup(cell.getRow());
+        addDirtyGroup(cell.getBlock());
+    }
 
-        possibleValues.clear();
-        IntStream.rangeClosed(1, maxValue).forEach(possibleValues::add);
+    private void addDirtyGroup(Group group) {
+        if (!group.queued) {
+            group.queued = true;
+            dirtyGroups[(dirtyGroupHead + dirtyGroupCount++) % dirtyGroups.length] = group;
+        }
+    }
 
-        createCells(board);
+    private Group pollDirtyGroup() {
+        Group group = dirtyGroups[dirtyGroupHead];
+        dirtyGroups[dirtyGroupHead] = null;
+        dirtyGroupHead = (dirtyGroupHead + 1) % dirtyGroups.length;
+        dirtyGroupCount--;
+        group.queued = false;
+        return group;
     }
 
-    public void setSingleCandidates() {
-        for (var it = emptyCells.iterator(); it.hasNext(); ) {
-            Cell cell = it.next();
-            if (singleCandidates.contains(cell)) {
-                cell.setNumber();
-                it.remove();
-                fixedCells.add(cell);
+    private void clearDirtyGroups() {
+        while (dirtyGroupCount > 0) {
+            pollDirtyGroup();
+        }
+    }
+
+    public boolean hasDirtyGroups() {
+        return dirtyGroupCount > 0;
+    }
+
+    /**
+     * Keeps the empty cells sorted into buckets by their number of candidates. Filled cells are in no bucket.
+     */
+    void cellChanged(Cell cell) {
+        int bucket = cell.isEmpty() ? cell.getCandidates().getCount() : -1;
+        if (bucket == cell.bucket) {
+            return;
+        }
+        if (cell.bucket >= 0) {
+            if (cell.previousInBucket == null) {
+                buckets[cell.bucket] = cell.nextInBucket;
+            } else {
+                cell.previousInBucket.nextInBucket = cell.nextInBucket;
+            }
+            if (cell.nextInBucket != null) {
+                cell.nextInBucket.previousInBucket = cell.previousInBucket;
             }
+            cell.previousInBucket = null;
+            cell.nextInBucket = null;
+        }
+        cell.bucket = bucket;
+        if (bucket >= 0) {
+            cell.nextInBucket = buckets[bucket];
+            if (buckets[bucket] != null) {
+                buckets[bucket].previousInBucket = cell;
+            }
+            buckets[bucket] = cell;
         }
     }
 
     public Cell getAnyEmptyCell() {
-        return emptyCells.get(0);
+        return emptyCells[0];
     }
 
-    private void createCells(String board) {
-        for (int rowIndex = 0; rowIndex < maxValue; rowIndex++) {
-            for (int columnIndex = 0; columnIndex < maxValue; columnIndex++) {
-                int blockIndex = (rowIndex / size) * size + (columnIndex / size);
-                Cell cell = new Cell(columns[columnIndex], rows[rowIndex], blocks[blockIndex]);
-                columns[columnIndex].add(cell);
-                rows[rowIndex].add(cell);
-                blocks[blockIndex].add(cell);
-
-                int number = Character.getNumericValue(board.charAt(columnIndex + rowIndex * maxValue));
-                if (number == 0) {
-                    cell.getCandidates().addAll(possibleValues);
-                    emptyCells.add(cell);
-                } else {
-                    cell.setNumber(number);
-                    fixedCells.add(cell);
-                }
+    /**
+     * Returns an empty cell with the fewest candidates, which is the best cell to branch on.
+     */
+    public Cell getMostConstrainedEmptyCell() {
+        for (Cell bucket : buckets) {
+            if (bucket != null) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+
+    private void createCells(BoardTopology topology) {
+        this.topology = topology;
+        size = topology.getSize();
+        maxValue = topology.getMaxValue();
+        columns = new Group[maxValue];
+        rows = new Group[maxValue];
+        blocks = new Group[maxValue];
+        for (int i = 0; i < maxValue; i++) {
+            columns[i] = new Group(this, topology.getCellsOfColumn()[i]);
+            rows[i] = new Group(this, topology.getCellsOfRow()[i]);
+            blocks[i] = new Group(this, topology.getCellsOfBlock()[i]);
+        }
+        cells = new Cell[topology.getCellCount()];
+        for (int index = 0; index < cells.length; index++) {
+            cells[index] = new Cell(this, index, columns[topology.getColumnOfCell()[index]],
+                    rows[topology.getRowOfCell()[index]], blocks[topology.getBlockOfCell()[index]]);
+        }
+        unitTechniques = null;
+        emptyCells = new Cell[cells.length];
+        emptyCellCount = 0;
+        buckets = new Cell[maxValue + 1];
+        dirtyGroups = new Group[3 * maxValue];
+        dirtyGroupHead = 0;
+        dirtyGroupCount = 0;
+    }
+
+    private void setNumbers(String board) {
+        int[] usedInColumns = new int[maxValue];
+        int[] usedInRows = new int[maxValue];
+        int[] usedInBlocks = new int[maxValue];
+        for (Cell cell : cells) {
+            int number = BoardNotation.numberOf(board.charAt(cell.getIndex()));
+            if (number < 0 || number > maxValue) {
+                throw new IllegalArgumentException(board);
+            }
+            if (number != 0) {
+                cell.setNumber(number);
+                usedInColumns[topology.getColumnOfCell()[cell.getIndex()]] |= 1 << number;
+                usedInRows[topology.getRowOfCell()[cell.getIndex()]] |= 1 << number;
+                usedInBlocks[topology.getBlockOfCell()[cell.getIndex()]] |= 1 << number;
             }
         }
-        for (Cell cell : emptyCells) {
-            cell.updateBuddyCells();
+        int allNumbers = ((1 << maxValue) - 1) << 1;
+        for (Cell cell : cells) {
+            if (cell.isEmpty()) {
+                int index = cell.getIndex();
+                cell.getCandidates().setBinaryEncodedNumbers(allNumbers
+                        & ~usedInColumns[topology.getColumnOfCell()[index]]
+                        & ~usedInRows[topology.getRowOfCell()[index]]
+                        & ~usedInBlocks[topology.getBlockOfCell()[index]]);
+                addEmptyCell(cell);
+            }
+        }
+        addAllDirtyGroups();
+    }
+
+    private void addEmptyCell(Cell cell) {
+        cell.setEmptyCellIndex(emptyCellCount);
+        emptyCells[emptyCellCount++] = cell;
+        cellChanged(cell);
+    }
+
+    private void addAllDirtyGroups() {
+        for (int i = 0; i < maxValue; i++) {
+            addDirtyGroup(columns[i]);
+            addDirtyGroup(rows[i]);
+            addDirtyGroup(blocks[i]);
         }
     }
 
@@ -105,7 +325,11 @@ public class Board {
     }
 
     public Cell cell(int column, int row) {
-        return columns[column].getCell(row);
+        return cells[column + row * maxValue];
+    }
+
+    public Cell cell(int index) {
+        return cells[index];
     }
 
     @Override
@@ -113,7 +337,7 @@ public class Board {
         StringBuilder sb = new StringBuilder();
         for (int rowIndex = 0; rowIndex < maxValue; rowIndex++) {
             for (int columnIndex = 0; columnIndex < maxValue; columnIndex++) {
-                sb.append(columns[columnIndex].getCell(rowIndex).getNumber());
+                sb.append(BoardNotation.characterOf(cell(columnIndex, rowIndex).getNumber()));
             }
             sb.append("\n");
         }
@@ -124,7 +348,7 @@ public class Board {
         StringBuilder sb = new StringBuilder();
         for (int rowIndex = 0; rowIndex < maxValue; rowIndex++) {
             for (int columnIndex = 0; columnIndex < maxValue; columnIndex++) {
-                sb.append(cell(columnIndex, rowIndex).getNumber());
+                sb.append(BoardNotation.characterOf(cell(columnIndex, rowIndex).getNumber()));
             }
         }
         return sb.toString();
@@ -136,30 +360,60 @@ public class Board {
                 && Arrays.stream(blocks).allMatch(Group::isValid);
     }
 
+    /**
+     * Runs the techniques of all cells in the dirty groups until no group is dirty anymore. A new board starts with all
+     * groups dirty; afterwards only the groups of cells whose candidates were removed are queued again.
+     */
     public void eliminateImpossibleCandidates() {
-        for (int countBefore = singleCandidates.size(); ; ) {
-            for (Cell cell : emptyCells) {
-                if (!singleCandidates.contains(cell)) {
-                    cell.eliminateImpossibleCandidates();
-                    if (cell.getCandidates().hasOneNumber()) {
-                        singleCandidates.add(cell);
+        try {
+            while (dirtyGroupCount > 0) {
+                for (int cellIndex : pollDirtyGroup().getCellIndexes()) {
+                    Cell cell = cells[cellIndex];
+                    if (cell.isEmpty() && !cell.isSingleCandidate()) {
+                        cell.eliminateImpossibleCandidates();
+                        if (cell.getCandidates().hasOneNumber()) {
+                            cell.markAsSingleCandidate();
+                        }
                     }
                 }
             }
-            int countAfter = singleCandidates.size();
-            if (countAfter == 0 || countBefore == countAfter || countAfter == emptyCells.size()) {
-                return;
+        } catch (NoSolutionException e) {
+            clearDirtyGroups();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the enabled subset and fish techniques, cheapest first, until one of them eliminates candidates. The groups
+     * of the changed cells are queued, so {@link #eliminateImpossibleCandidates()} has work again afterwards.
+     */
+    public void eliminateWithUnitTechniques() {
+        if (unitTechniques == null) {
+            unitTechniques = new UnitTechniques(this, columns, rows, blocks);
+        }
+        for (Technique technique : UNIT_TECHNIQUES) {
+            if (isEnabled(technique)) {
+                if (statistics == null) {
+                    unitTechniques.apply(technique);
+                } else {
+                    statistics.run(technique, () -> unitTechniques.apply(technique));
+                }
+                if (dirtyGroupCount > 0) {
+                    return;
+                }
             }
-            countBefore = countAfter;
         }
     }
 
     public boolean isNotSolvable() {
-        return emptyCells.stream()
-                .anyMatch(entry -> entry.getCandidates().getCount() == 0);
+        return buckets[0] != null;
     }
 
     public boolean hasEmptyCells() {
-        return emptyCells.size() > 0;
+        return emptyCellCount > 0;
+    }
+
+    public int getEmptyCellCount() {
+        return emptyCellCount;
     }
 }
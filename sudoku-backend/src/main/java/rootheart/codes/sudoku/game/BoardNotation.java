@@ -0,0 +1,53 @@
+package rootheart.codes.sudoku.game;
+
+import java.util.Arrays;
+
+/**
+ * The characters of a board string: '0' or '.' for an empty cell, '1' to '9' and then 'a' to 'p' (or upper case) for
+ * the numbers 10 to 25. This is the same as {@link Character#forDigit(int, int)} with radix 36, so 16x16 boards are
+ * written 1-9, a-g and 25x25 boards 1-9, a-p.
+ */
+public final class BoardNotation {
+    public static final int MIN_SIZE = 2;
+    public static final int MAX_SIZE = 5;
+
+    private static final byte[] NUMBERS = new byte[128];
+
+    static {
+        Arrays.fill(NUMBERS, (byte) -1);
+        NUMBERS['.'] = 0;
+        for (int number = 0; number < Character.MAX_RADIX; number++) {
+            char character = Character.forDigit(number, Character.MAX_RADIX);
+            NUMBERS[character] = (byte) number;
+            NUMBERS[Character.toUpperCase(character)] = (byte) number;
+        }
+    }
+
+    private BoardNotation() {
+    }
+
+    /**
+     * Returns the size of the blocks of a board with the given number of cells, e.g. 3 for 81 cells.
+     *
+     * @throws IllegalArgumentException if no supported board has that many cells
+     */
+    public static int sizeOf(int cellCount) {
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++) {
+            if (size * size * size * size == cellCount) {
+                return size;
+            }
+        }
+        throw new IllegalArgumentException("unsupported number of cells " + cellCount);
+    }
+
+    /**
+     * Returns the number of a character, 0 for an empty cell and -1 if the character is not a number.
+     */
+    public static int numberOf(char character) {
+        return character < NUMBERS.length ? NUMBERS[character] : -1;
+    }
+
+    public static char characterOf(int number) {
+        return Character.forDigit(number, Character.MAX_RADIX);
+    }
+}
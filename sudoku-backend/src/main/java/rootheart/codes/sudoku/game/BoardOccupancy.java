@@ -0,0 +1,117 @@
+package rootheart.codes.sudoku.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The numbers in the rows, columns and blocks of a packed board, kept up to date with every change of the board, so
+ * that conflicts and complete boards are known after a move in constant time. Every unit has a bit mask of its
+ * numbers, bit n for number n, and a count per number, which tells whether a number is still in the unit when one of
+ * two equal numbers is removed.
+ */
+class BoardOccupancy {
+    private final PackedBoard board;
+    private final int size;
+    private final int maxValue;
+    /** The rows first, then the columns, then the blocks. */
+    private final int[] unitMasks;
+    private final byte[] counts;
+    private int filledCells;
+    private int duplicates;
+
+    BoardOccupancy(PackedBoard board) {
+        this.board = board;
+        size = board.getSize();
+        maxValue = board.getMaxValue();
+        unitMasks = new int[3 * maxValue];
+        counts = new byte[3 * maxValue * (maxValue + 1)];
+        for (int row = 0; row < maxValue; row++) {
+            for (int column = 0; column < maxValue; column++) {
+                int number = board.get(column, row);
+                if (number != 0) {
+                    add(column, row, number);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the number of a cell on the board, 0 empties the cell.
+     */
+    void set(int column, int row, int number) {
+        int previous = board.get(column, row);
+        if (previous == number) {
+            return;
+        }
+        if (previous != 0) {
+            remove(column, row, previous);
+        }
+        if (number != 0) {
+            add(column, row, number);
+        }
+        board.set(column, row, number);
+    }
+
+    boolean isFull() {
+        return filledCells == maxValue * maxValue;
+    }
+
+    boolean hasConflicts() {
+        return duplicates > 0;
+    }
+
+    /**
+     * Returns the cells whose number is also in their row, column or block. This looks at every cell, but only if
+     * the board has conflicts.
+     */
+    List<CellPosition> conflictingCells() {
+        List<CellPosition> cells = new ArrayList<>();
+        for (int row = 0; row < maxValue && duplicates > 0; row++) {
+            for (int column = 0; column < maxValue; column++) {
+                int number = board.get(column, row);
+                if (number != 0 && (count(row, number) > 1 || count(maxValue + column, number) > 1
+                        || count(2 * maxValue + block(column, row), number) > 1)) {
+                    cells.add(new CellPosition(column + 1, row + 1));
+                }
+            }
+        }
+        return cells;
+    }
+
+    private void add(int column, int row, int number) {
+        filledCells++;
+        increment(row, number);
+        increment(maxValue + column, number);
+        increment(2 * maxValue + block(column, row), number);
+    }
+
+    private void remove(int column, int row, int number) {
+        filledCells--;
+        decrement(row, number);
+        decrement(maxValue + column, number);
+        decrement(2 * maxValue + block(column, row), number);
+    }
+
+    private void increment(int unit, int number) {
+        if (counts[unit * (maxValue + 1) + number]++ > 0) {
+            duplicates++;
+        }
+        unitMasks[unit] |= 1 << number;
+    }
+
+    private void decrement(int unit, int number) {
+        if (--counts[unit * (maxValue + 1) + number] > 0) {
+            duplicates--;
+        } else {
+            unitMasks[unit] &= ~(1 << number);
+        }
+    }
+
+    private int count(int unit, int number) {
+        return counts[unit * (maxValue + 1) + number];
+    }
+
+    private int block(int column, int row) {
+        return row / size * size + column / size;
+    }
+}
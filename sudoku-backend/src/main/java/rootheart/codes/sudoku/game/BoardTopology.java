@@ -0,0 +1,109 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The layout of a board of one size: which cells form the columns, rows and blocks, and which other cells each
+ * technique of a cell looks at. The layout is the same for every board of a size, so it is computed once and shared
+ * by all boards. All tables contain cell indexes and must not be modified.
+ */
+@Getter(AccessLevel.PACKAGE)
+final class BoardTopology {
+    private static final AtomicReferenceArray<BoardTopology> TOPOLOGIES = new AtomicReferenceArray<>(6);
+
+    private final int size;
+    private final int maxValue;
+    private final int cellCount;
+
+    private final int[] columnOfCell;
+    private final int[] rowOfCell;
+    private final int[] blockOfCell;
+
+    private final int[][] cellsOfColumn;
+    private final int[][] cellsOfRow;
+    private final int[][] cellsOfBlock;
+
+    private final int[][] columnPeers;
+    private final int[][] rowPeers;
+    private final int[][] blockPeers;
+    private final int[][] blockPeersInOtherRows;
+    private final int[][] blockPeersInOtherColumns;
+    private final int[][] blockPeersInOtherRowsAndColumns;
+    private final int[][] rowPeersInOtherBlocks;
+    private final int[][] columnPeersInOtherBlocks;
+
+    static BoardTopology forSize(int size) {
+        BoardTopology topology = TOPOLOGIES.get(size);
+        if (topology == null) {
+            TOPOLOGIES.compareAndSet(size, null, new BoardTopology(size));
+            topology = TOPOLOGIES.get(size);
+        }
+        return topology;
+    }
+
+    private BoardTopology(int size) {
+        this.size = size;
+        maxValue = size * size;
+        cellCount = maxValue * maxValue;
+
+        columnOfCell = new int[cellCount];
+        rowOfCell = new int[cellCount];
+        blockOfCell = new int[cellCount];
+        cellsOfColumn = new int[maxValue][maxValue];
+        cellsOfRow = new int[maxValue][maxValue];
+        cellsOfBlock = new int[maxValue][maxValue];
+        int[] cellCountOfBlock = new int[maxValue];
+        for (int index = 0; index < cellCount; index++) {
+            int columnIndex = index % maxValue;
+            int rowIndex = index / maxValue;
+            int blockIndex = (rowIndex / size) * size + columnIndex / size;
+            columnOfCell[index] = columnIndex;
+            rowOfCell[index] = rowIndex;
+            blockOfCell[index] = blockIndex;
+            cellsOfColumn[columnIndex][rowIndex] = index;
+            cellsOfRow[rowIndex][columnIndex] = index;
+            cellsOfBlock[blockIndex][cellCountOfBlock[blockIndex]++] = index;
+        }
+
+        columnPeers = new int[cellCount][];
+        rowPeers = new int[cellCount][];
+        blockPeers = new int[cellCount][];
+        blockPeersInOtherRows = new int[cellCount][];
+        blockPeersInOtherColumns = new int[cellCount][];
+        blockPeersInOtherRowsAndColumns = new int[cellCount][];
+        rowPeersInOtherBlocks = new int[cellCount][];
+        columnPeersInOtherBlocks = new int[cellCount][];
+        for (int index = 0; index < cellCount; index++) {
+            int[] column = cellsOfColumn[columnOfCell[index]];
+            int[] row = cellsOfRow[rowOfCell[index]];
+            int[] block = cellsOfBlock[blockOfCell[index]];
+            columnPeers[index] = peers(index, column, false, false, false);
+            rowPeers[index] = peers(index, row, false, false, false);
+            blockPeers[index] = peers(index, block, false, false, false);
+            blockPeersInOtherRows[index] = peers(index, block, false, true, false);
+            blockPeersInOtherColumns[index] = peers(index, block, true, false, false);
+            blockPeersInOtherRowsAndColumns[index] = peers(index, block, true, true, false);
+            rowPeersInOtherBlocks[index] = peers(index, row, false, false, true);
+            columnPeersInOtherBlocks[index] = peers(index, column, false, false, true);
+        }
+    }
+
+    private int[] peers(int index, int[] group, boolean otherColumn, boolean otherRow, boolean otherBlock) {
+        int[] peers = new int[maxValue];
+        int count = 0;
+        for (int peer : group) {
+            if (peer != index
+                    && (!otherColumn || columnOfCell[peer] != columnOfCell[index])
+                    && (!otherRow || rowOfCell[peer] != rowOfCell[index])
+                    && (!otherBlock || blockOfCell[peer] != blockOfCell[index])) {
+                peers[count++] = peer;
+            }
+        }
+        int[] result = new int[count];
+        System.arraycopy(peers, 0, result, 0, count);
+        return result;
+    }
+}
@@ -1,106 +1,185 @@
 package rootheart.codes.sudoku.game;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import rootheart.codes.sudoku.solver.NoSolutionException;
 import rootheart.codes.sudoku.solver.NumberSet;
+import rootheart.codes.sudoku.solver.SolverStatistics;
+import rootheart.codes.sudoku.solver.Technique;
 
 @Getter
 @RequiredArgsConstructor
 public class Cell {
+    private final Board board;
+    private final int index;
     private final Group column;
     private final Group row;
     private final Group block;
-    @Setter
     private int number;
+    private boolean singleCandidate;
+    @Setter(AccessLevel.PACKAGE)
+    private int trailStamp;
+    @Setter(AccessLevel.PACKAGE)
+    private int emptyCellIndex;
+    @Getter(AccessLevel.NONE)
+    int bucket = -1;
+    @Getter(AccessLevel.NONE)
+    Cell previousInBucket;
+    @Getter(AccessLevel.NONE)
+    Cell nextInBucket;
 
-    private final GroupCells cellsInColumn = new ColumnCells();
-    private final GroupCells cellsInRow = new RowCells();
-    private final GroupCells cellsInBlock = new BlockCells();
     @Getter
     private final NumberSet candidates = new NumberSet();
-    private final CellList cellsInSameBlockInOtherRows = new CellList(10);
-    private final CellList cellsInSameRowInOtherBlocks = new CellList(10);
-    private final CellList cellsInSameBlockInOtherColumns = new CellList(10);
-    private final CellList cellsInSameColumnInOtherBlocks = new CellList(10);
 
     public boolean isEmpty() {
         return number == 0;
     }
 
-    public void updateBuddyCells() {
-        addCellsFromGroup(cellsInColumn);
-        addCellsFromGroup(cellsInRow);
-        addCellsFromGroup(cellsInBlock);
+    public void setNumber(int number) {
+        board.save(this);
+        this.number = number;
+        board.cellChanged(this);
     }
 
     public void setNumber() {
         setNumber(candidates.getFirst());
     }
 
-    private void addCellsFromGroup(GroupCells groupCells) {
-        for (Cell groupCell : groupCells.getGroup().getCells()) {
-            if (groupCell != this) {
-                if (groupCell.isEmpty()) {
-                    groupCells.add(groupCell);
-                } else {
-                    candidates.remove(groupCell.getNumber());
-                }
-            }
+    public void removeCandidate(int candidate) {
+        if (candidates.contains(candidate)) {
+            board.save(this);
+            int previousCandidates = candidates.getBinaryEncodedNumbers();
+            candidates.remove(candidate);
+            board.candidatesChanged(this, previousCandidates);
+        }
+    }
+
+    public void removeCandidates(NumberSet numbers) {
+        if (candidates.containsAny(numbers)) {
+            board.save(this);
+            int previousCandidates = candidates.getBinaryEncodedNumbers();
+            candidates.removeAll(numbers);
+            board.candidatesChanged(this, previousCandidates);
+        }
+    }
+
+    void keepOnlyCandidate(int candidate) {
+        if (!candidates.hasOneNumber() || !candidates.contains(candidate)) {
+            board.save(this);
+            int previousCandidates = candidates.getBinaryEncodedNumbers();
+            candidates.removeAllAndAdd(candidate);
+            board.candidatesChanged(this, previousCandidates);
         }
     }
 
+    void markAsSingleCandidate() {
+        board.save(this);
+        singleCandidate = true;
+    }
+
+    void removeNumberFromBuddyCells() {
+        BoardTopology topology = board.getTopology();
+        removeCandidate(topology.getColumnPeers()[index], number);
+        removeCandidate(topology.getRowPeers()[index], number);
+        removeCandidate(topology.getBlockPeers()[index], number);
+    }
+
+    void setCandidates(NumberSet numbers) {
+        board.save(this);
+        candidates.clear();
+        candidates.addAll(numbers);
+        board.cellChanged(this);
+    }
+
+    void restore(int candidates, int number, boolean singleCandidate, int trailStamp) {
+        this.candidates.setBinaryEncodedNumbers(candidates);
+        this.number = number;
+        this.singleCandidate = singleCandidate;
+        this.trailStamp = trailStamp;
+        board.cellChanged(this);
+    }
 
     public void eliminateImpossibleCandidates() {
-        revealHiddenSingle();
-        eliminateLockedCandidates();
-        eliminateNakedTwins();
-        if (candidates.hasOneNumber()) {
-            // TODO here some cells will be updated multiple times
-            cellsInColumn.getCells().forEach(c -> c.candidates.removeAll(candidates));
-            cellsInRow.getCells().forEach(c -> c.candidates.removeAll(candidates));
-            cellsInBlock.getCells().forEach(c -> c.candidates.removeAll(candidates));
+        SolverStatistics statistics = board.getStatistics();
+        if (statistics == null) {
+            if (board.isEnabled(Technique.HIDDEN_SINGLE)) {
+                revealHiddenSingle();
+            }
+            if (board.isEnabled(Technique.LOCKED_CANDIDATES)) {
+                eliminateLockedCandidates();
+            }
+            if (board.isEnabled(Technique.NAKED_TWINS)) {
+                eliminateNakedTwins();
+            }
+            if (candidates.hasOneNumber()) {
+                removeCandidatesFromBuddyCells();
+            }
+        } else {
+            if (board.isEnabled(Technique.HIDDEN_SINGLE)) {
+                statistics.run(Technique.HIDDEN_SINGLE, this::revealHiddenSingle);
+            }
+            if (board.isEnabled(Technique.LOCKED_CANDIDATES)) {
+                statistics.run(Technique.LOCKED_CANDIDATES, this::eliminateLockedCandidates);
+            }
+            if (board.isEnabled(Technique.NAKED_TWINS)) {
+                statistics.run(Technique.NAKED_TWINS, this::eliminateNakedTwins);
+            }
+            if (candidates.hasOneNumber()) {
+                statistics.run(Technique.NAKED_SINGLE, this::removeCandidatesFromBuddyCells);
+            }
         }
     }
 
+    private void removeCandidatesFromBuddyCells() {
+        BoardTopology topology = board.getTopology();
+        removeCandidates(topology.getColumnPeers()[index], candidates);
+        removeCandidates(topology.getRowPeers()[index], candidates);
+        // the cells of the block in the same row or column were already updated
+        removeCandidates(topology.getBlockPeersInOtherRowsAndColumns()[index], candidates);
+    }
+
     // slowest 8-10µs
     void eliminateLockedCandidates() {
         // 4-7µs
-        cellsInSameBlockInOtherRows.updateCandidates();
-        cellsInSameBlockInOtherColumns.updateCandidates();
-        cellsInSameColumnInOtherBlocks.updateCandidates();
-        cellsInSameRowInOtherBlocks.updateCandidates();
+        BoardTopology topology = board.getTopology();
+        int[] blockPeersInOtherRows = topology.getBlockPeersInOtherRows()[index];
+        int[] blockPeersInOtherColumns = topology.getBlockPeersInOtherColumns()[index];
+        int[] columnPeersInOtherBlocks = topology.getColumnPeersInOtherBlocks()[index];
+        int[] rowPeersInOtherBlocks = topology.getRowPeersInOtherBlocks()[index];
+        NumberSet candidatesInSameBlockInOtherRows = candidatesOf(blockPeersInOtherRows);
+        NumberSet candidatesInSameBlockInOtherColumns = candidatesOf(blockPeersInOtherColumns);
+        NumberSet candidatesInSameColumnInOtherBlocks = candidatesOf(columnPeersInOtherBlocks);
+        NumberSet candidatesInSameRowInOtherBlocks = candidatesOf(rowPeersInOtherBlocks);
 
         // Für jeden Kandidaten schauen, ob er in einer Zelle einer anderen Zeile/Spalte in diesem Block existiert.
         // Falls nein, den Kandidaten für alle Zellen dieser Zeile/Spalte in anderen Blöcken löschen
         candidates.forEach(candidate -> {
-            if (!cellsInSameBlockInOtherRows.getCandidates().contains(candidate)) {
-                cellsInSameRowInOtherBlocks.removeCandidate(candidate);
+            if (!candidatesInSameBlockInOtherRows.contains(candidate)) {
+                removeCandidate(rowPeersInOtherBlocks, candidate);
             }
-            if (!cellsInSameRowInOtherBlocks.getCandidates().contains(candidate)) {
-                cellsInSameBlockInOtherRows.removeCandidate(candidate);
+            if (!candidatesInSameRowInOtherBlocks.contains(candidate)) {
+                removeCandidate(blockPeersInOtherRows, candidate);
             }
-            if (!cellsInSameBlockInOtherColumns.getCandidates().contains(candidate)) {
-                cellsInSameColumnInOtherBlocks.removeCandidate(candidate);
+            if (!candidatesInSameBlockInOtherColumns.contains(candidate)) {
+                removeCandidate(columnPeersInOtherBlocks, candidate);
             }
-            if (!cellsInSameColumnInOtherBlocks.getCandidates().contains(candidate)) {
-                cellsInSameBlockInOtherColumns.removeCandidate(candidate);
+            if (!candidatesInSameColumnInOtherBlocks.contains(candidate)) {
+                removeCandidate(blockPeersInOtherColumns, candidate);
             }
         });
     }
 
     // medium 1-4µs
     void revealHiddenSingle() {
-        cellsInColumn.updateCandidates();
-        cellsInRow.updateCandidates();
-        cellsInBlock.updateCandidates();
+        BoardTopology topology = board.getTopology();
         NumberSet n = new NumberSet(candidates);
-        n.removeAll(cellsInColumn.getCandidates());
-        n.removeAll(cellsInRow.getCandidates());
-        n.removeAll(cellsInBlock.getCandidates());
+        n.removeAll(candidatesOf(topology.getColumnPeers()[index]));
+        n.removeAll(candidatesOf(topology.getRowPeers()[index]));
+        n.removeAll(candidatesOf(topology.getBlockPeers()[index]));
         if (n.getCount() == 1) {
-            candidates.removeAllAndAdd(n.getFirst());
+            keepOnlyCandidate(n.getFirst());
         } else if (n.getCount() > 1) {
             throw new NoSolutionException("multiple values can only exist in this cell, this is not possible");
         }
@@ -109,89 +188,49 @@ public class Cell {
     // fastest <2µs
     void eliminateNakedTwins() {
         if (candidates.getCount() == 2) {
-            removeCandidatesFromAllCellsIfATwinExists(cellsInColumn);
-            removeCandidatesFromAllCellsIfATwinExists(cellsInRow);
-            removeCandidatesFromAllCellsIfATwinExists(cellsInBlock);
+            BoardTopology topology = board.getTopology();
+            removeCandidatesFromAllCellsIfATwinExists(topology.getColumnPeers()[index]);
+            removeCandidatesFromAllCellsIfATwinExists(topology.getRowPeers()[index]);
+            removeCandidatesFromAllCellsIfATwinExists(topology.getBlockPeers()[index]);
         }
     }
 
-    private void removeCandidatesFromAllCellsIfATwinExists(CellList cells) {
-        Cell twin = cells.findExactlyOneCellWithCandidates(candidates);
-        if (twin != null) {
-            for (Cell otherCell : cells.getCells()) {
-                if (otherCell != twin) {
-                    otherCell.candidates.removeAll(candidates);
+    private void removeCandidatesFromAllCellsIfATwinExists(int[] peers) {
+        int twin = -1;
+        for (int peer : peers) {
+            if (board.cell(peer).getCandidates().equals(candidates)) {
+                if (twin >= 0) {
+                    throw new NoSolutionException("more than two cells only allow the same two numbers, this is not possible");
                 }
+                twin = peer;
             }
         }
-    }
-
-    private boolean columnDiffers(Cell otherCell) {
-        return getColumn() != otherCell.getColumn();
-    }
-
-    private boolean rowDiffers(Cell otherCell) {
-        return getRow() != otherCell.getRow();
-    }
-
-    private boolean blockDiffers(Cell otherCell) {
-        return getBlock() != otherCell.getBlock();
-    }
-
-    private abstract static class GroupCells extends CellList {
-        public GroupCells() {
-            super(10);
-        }
-
-        public abstract Group getGroup();
-    }
-
-    private class ColumnCells extends GroupCells {
-        @Override
-        public Group getGroup() {
-            return column;
-        }
-
-        @Override
-        public void add(Cell cell) {
-            super.add(cell);
-            if (blockDiffers(cell)) {
-                cellsInSameColumnInOtherBlocks.add(cell);
+        if (twin >= 0) {
+            for (int peer : peers) {
+                if (peer != twin) {
+                    board.cell(peer).removeCandidates(candidates);
+                }
             }
         }
     }
 
-    private class RowCells extends GroupCells {
-        @Override
-        public Group getGroup() {
-            return row;
-        }
-
-        @Override
-        public void add(Cell cell) {
-            super.add(cell);
-            if (blockDiffers(cell)) {
-                cellsInSameRowInOtherBlocks.add(cell);
-            }
+    private NumberSet candidatesOf(int[] peers) {
+        NumberSet numbers = new NumberSet();
+        for (int peer : peers) {
+            numbers.addAll(board.cell(peer).getCandidates());
         }
+        return numbers;
     }
 
-
-    private class BlockCells extends GroupCells {
-        @Override
-        public Group getGroup() {
-            return block;
+    private void removeCandidate(int[] peers, int candidate) {
+        for (int peer : peers) {
+            board.cell(peer).removeCandidate(candidate);
         }
+    }
 
-        @Override
-        public void add(Cell cell) {
-            super.add(cell);
-            if (rowDiffers(cell)) {
-                cellsInSameBlockInOtherRows.add(cell);
-            }
-            if (columnDiffers(cell)) {
-                cellsInSameBlockInOtherColumns.add(cell);
-            }
+    private void removeCandidates(int[] peers, NumberSet numbers) {
+        for (int peer : peers) {
+            board.cell(peer).removeCandidates(numbers);
         }
     }
 }
@@ -0,0 +1,14 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The new number of a cell, 0 if the cell was emptied. The cell is its index in row-major order.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CellDelta {
+    private final int cell;
+    private final int number;
+}
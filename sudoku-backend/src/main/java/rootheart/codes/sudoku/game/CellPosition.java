@@ -0,0 +1,16 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The column and row of a cell, counted from 1 as in the moves of a game.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class CellPosition {
+    private final int column;
+    private final int row;
+}
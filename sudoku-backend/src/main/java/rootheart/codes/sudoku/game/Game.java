@@ -1,15 +1,26 @@
 package rootheart.codes.sudoku.game;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.lang3.Validate;
 import rootheart.codes.sudoku.user.SudokuUser;
 
+import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.Transient;
 
+/**
+ * A game stores a snapshot of its board, the moves after the snapshot are in the {@link GameJournal}. The current
+ * board is restored from both when the game is loaded. The journal writes the snapshot and the move counts with an
+ * update statement, without loading the game.
+ * <p>
+ * An active game is shared between requests and guarded by its own lock.
+ */
 @Entity
 @Getter
 @Setter
@@ -17,21 +28,90 @@ public class Game {
     @Id
     @GeneratedValue
     private long id;
-    private String board;
+    @Convert(converter = PackedBoardConverter.class)
+    @Column(length = 391)
+    @Getter(AccessLevel.PACKAGE)
+    @Setter(AccessLevel.NONE)
+    private PackedBoard snapshot;
+    /** The number of moves that are included in the snapshot. */
+    @Setter(AccessLevel.PACKAGE)
+    private int snapshotMoveCount;
+    /** The number of moves on the board, undone moves are not counted. */
+    @Setter(AccessLevel.PACKAGE)
+    private int moveCount;
+    /** The number of moves in the journal, the moves after the move count can be redone. */
+    @Setter(AccessLevel.PACKAGE)
+    private int journalLength;
     @ManyToOne
     private SudokuUser player;
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private PackedBoard board;
+    @Transient
+    @Getter(AccessLevel.PACKAGE)
+    @Setter(AccessLevel.PACKAGE)
+    private JournalBuffer journal;
+    /** Built from the board when the first move is checked, then kept up to date by {@link #set}. */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private BoardOccupancy occupancy;
 
     public Game() {
-        board = String.format("%081d", 0);
+        this(3);
     }
 
-    public void set(int column, int row, int number) {
-        Validate.inclusiveBetween(1, 9, column, "Invalid column argument");
-        Validate.inclusiveBetween(1, 9, row, "Invalid row argument");
-        Validate.inclusiveBetween(1, 9, number, "Invalid number argument");
-        int index = 9 * (row - 1) + column -1;
-        char[] chars = board.toCharArray();
-        chars[index] = Character.forDigit(number, 10);
-        board = new String(chars);
+    public Game(int size) {
+        Validate.inclusiveBetween(BoardNotation.MIN_SIZE, BoardNotation.MAX_SIZE, size, "Invalid size argument");
+        setBoard(new PackedBoard(size));
+    }
+
+    /**
+     * Sets the number of a cell and returns the number that was in the cell before.
+     */
+    public int set(int column, int row, int number) {
+        int maxValue = board.getMaxValue();
+        Validate.inclusiveBetween(1, maxValue, column, "Invalid column argument");
+        Validate.inclusiveBetween(1, maxValue, row, "Invalid row argument");
+        Validate.inclusiveBetween(1, maxValue, number, "Invalid number argument");
+        int previousNumber = board.get(column - 1, row - 1);
+        setCell((row - 1) * maxValue + column - 1, number);
+        return previousNumber;
+    }
+
+    /**
+     * Starts the game with the given board, which is also its first snapshot.
+     */
+    public void setBoard(PackedBoard board) {
+        restore(board);
+        takeSnapshot();
+    }
+
+    /**
+     * Sets the number of a cell without checking it, 0 empties the cell.
+     */
+    void setCell(int cellIndex, int number) {
+        int maxValue = board.getMaxValue();
+        occupancy().set(cellIndex % maxValue, cellIndex / maxValue, number);
+    }
+
+    /**
+     * Replaces the current board, e.g. with the board that was restored from the snapshot and the journal.
+     */
+    void restore(PackedBoard board) {
+        this.board = board;
+        occupancy = null;
+    }
+
+    void takeSnapshot() {
+        snapshot = board.copy();
+        snapshotMoveCount = moveCount;
+    }
+
+    BoardOccupancy occupancy() {
+        if (occupancy == null) {
+            occupancy = new BoardOccupancy(board);
+        }
+        return occupancy;
     }
 }
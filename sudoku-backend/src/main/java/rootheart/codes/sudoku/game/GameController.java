@@ -1,15 +1,24 @@
 package rootheart.codes.sudoku.game;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import rootheart.codes.sudoku.generator.Difficulty;
 import rootheart.codes.sudoku.user.SudokuUser;
 import rootheart.codes.sudoku.user.SudokuUserService;
+import rootheart.codes.sudoku.user.UserPrincipal;
+
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/game")
@@ -21,17 +30,37 @@ public class GameController {
 
     private final GameDtoConverter gameDtoConverter;
 
+    private final SolverExecutor solverExecutor;
+
+    private final GameEvents gameEvents;
+
+    /**
+     * Creates a game, a game with a puzzle is created on the {@link SolverExecutor}, because the puzzle is generated
+     * if the pool has none.
+     */
     @PostMapping
-    public GameDto create(Authentication authentication) {
-        SudokuUser player = userService.loadUserByUsername((String) authentication.getPrincipal());
-        return gameDtoConverter.toDto(gameService.create(player));
+    public CompletableFuture<GameDto> create(Authentication authentication,
+                                             @RequestParam(defaultValue = "3") int size,
+                                             @RequestParam(required = false) Difficulty difficulty,
+                                             @RequestParam(defaultValue = "false") boolean packed) {
+        SudokuUser player = userService.getUser(playerId(authentication));
+        if (difficulty == null) {
+            Game game = gameService.create(player, size, null);
+            return CompletableFuture.completedFuture(gameDtoConverter.toDto(gameService.snapshot(game), packed));
+        }
+        return solverExecutor.submit(() -> {
+            Game game = gameService.create(player, size, difficulty);
+            return gameDtoConverter.toDto(gameService.snapshot(game), packed);
+        });
     }
 
     @GetMapping("/{gameId}")
-    public GameDto get(Authentication authentication, @PathVariable long gameId) {
-        SudokuUser player = userService.loadUserByUsername((String) authentication.getPrincipal());
-        Game game = gameService.get(player, gameId);
-        return gameDtoConverter.toDto(game);
+    public GameDto get(Authentication authentication,
+                       @PathVariable long gameId,
+                       @RequestParam(defaultValue = "false") boolean packed) {
+        long playerId = playerId(authentication);
+        Game game = found(gameService.get(playerId, gameId));
+        return gameDtoConverter.toDto(gameService.snapshot(game), packed);
     }
 
     @PutMapping("/{gameId}/{column}/{row}/{number}")
@@ -39,14 +68,72 @@ public class GameController {
                             @PathVariable long gameId,
                             @PathVariable int column,
                             @PathVariable int row,
-                            @PathVariable int number) {
-        SudokuUser player = userService.loadUserByUsername((String) authentication.getPrincipal());
-        Game game = gameService.makeMove(player, gameId, column, row, number);
-        return gameDtoConverter.toDto(game);
+                            @PathVariable int number,
+                            @RequestParam(defaultValue = "false") boolean packed) {
+        long playerId = playerId(authentication);
+        Game game = gameService.makeMove(playerId, gameId, column, row, number);
+        return changed(game, packed);
+    }
+
+    @PutMapping("/{gameId}/undo")
+    public GameDto undo(Authentication authentication,
+                        @PathVariable long gameId,
+                        @RequestParam(defaultValue = "false") boolean packed) {
+        long playerId = playerId(authentication);
+        Game game = gameService.undo(playerId, gameId);
+        return changed(game, packed);
+    }
+
+    @PutMapping("/{gameId}/redo")
+    public GameDto redo(Authentication authentication,
+                        @PathVariable long gameId,
+                        @RequestParam(defaultValue = "false") boolean packed) {
+        long playerId = playerId(authentication);
+        Game game = gameService.redo(playerId, gameId);
+        return changed(game, packed);
+    }
+
+    @GetMapping("/{gameId}/replay")
+    public GameReplayDto replay(Authentication authentication, @PathVariable long gameId) {
+        long playerId = playerId(authentication);
+        GameReplayDto replay = gameService.replay(playerId, gameId);
+        if (replay == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return replay;
     }
 
     @GetMapping("/validate/{board}")
-    public GameStatus validate(@PathVariable String board) {
-        return gameService.evaluate(board);
+    public CompletableFuture<GameEvaluation> validate(@PathVariable String board) {
+        return solverExecutor.submit(() -> gameService.evaluate(board));
+    }
+
+    /**
+     * Streams the changes of a game as server-sent events, starting with a snapshot of the board.
+     */
+    @GetMapping(path = "/{gameId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(Authentication authentication, @PathVariable long gameId) {
+        Game game = found(gameService.get(playerId(authentication), gameId));
+        return gameEvents.subscribe(game, gameService.evaluate(game));
+    }
+
+    private GameDto changed(Game game, boolean packed) {
+        GameSnapshot snapshot = gameService.evaluate(found(game));
+        gameEvents.changed(game, snapshot);
+        return gameDtoConverter.toDto(snapshot, packed);
+    }
+
+    /**
+     * Returns the game, or responds with 404 if the game does not exist or belongs to another player.
+     */
+    private static Game found(Game game) {
+        if (game == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return game;
+    }
+
+    private static long playerId(Authentication authentication) {
+        return ((UserPrincipal) authentication.getPrincipal()).getId();
     }
 }
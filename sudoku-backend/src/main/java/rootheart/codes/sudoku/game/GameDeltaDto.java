@@ -0,0 +1,18 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The cells of a game that changed since the last frame, with the status of the game after the changes.
+ */
+@Getter
+@RequiredArgsConstructor
+public class GameDeltaDto {
+    private final long gameId;
+    private final List<CellDelta> cells;
+    private final GameStatus status;
+    private final List<CellPosition> conflicts;
+}
@@ -1,13 +1,24 @@
 package rootheart.codes.sudoku.game;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
+import java.util.List;
+
+/**
+ * A game with its board either as board string or, if asked for, as the bytes of the {@link PackedBoard}, which are
+ * written as base64. After a move it also has the status of the game and the conflicting cells.
+ */
 @Getter
 @Setter
 @RequiredArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class GameDto {
     private final long gameId;
     private final String board;
+    private final byte[] packedBoard;
+    private final GameStatus status;
+    private final List<CellPosition> conflicts;
 }
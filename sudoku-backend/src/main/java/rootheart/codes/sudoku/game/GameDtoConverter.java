@@ -2,9 +2,21 @@ package rootheart.codes.sudoku.game;
 
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class GameDtoConverter {
-    public GameDto toDto(Game game) {
-        return new GameDto(game.getId(), game.getBoard());
+    public GameDto toDto(GameSnapshot snapshot) {
+        return toDto(snapshot, false);
+    }
+
+    public GameDto toDto(GameSnapshot snapshot, boolean packed) {
+        GameEvaluation evaluation = snapshot.getEvaluation();
+        GameStatus status = evaluation == null ? null : evaluation.getStatus();
+        List<CellPosition> conflicts = evaluation == null ? null : evaluation.getConflicts();
+        if (packed) {
+            return new GameDto(snapshot.getGameId(), null, snapshot.getBoard().toBytes(), status, conflicts);
+        }
+        return new GameDto(snapshot.getGameId(), snapshot.getBoard().toBoardString(), null, status, conflicts);
     }
 }
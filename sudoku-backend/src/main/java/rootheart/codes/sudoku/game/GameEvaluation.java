@@ -0,0 +1,36 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class GameEvaluation {
+    private final GameStatus status;
+    /** The cells whose number is also in their row, column or block, empty if there is no conflict. */
+    private final List<CellPosition> conflicts;
+
+    public static GameEvaluation of(GameStatus status) {
+        return new GameEvaluation(status, Collections.emptyList());
+    }
+
+    /**
+     * Returns the evaluation of a board with conflicts or without empty cells, which is known from the occupancy of its
+     * rows, columns and blocks, or null if the board must be solved.
+     */
+    static GameEvaluation of(BoardOccupancy occupancy) {
+        if (occupancy.hasConflicts()) {
+            GameStatus status = occupancy.isFull() ? GameStatus.COMPLETE : GameStatus.CONFLICT;
+            return new GameEvaluation(status, occupancy.conflictingCells());
+        }
+        if (occupancy.isFull()) {
+            return of(GameStatus.SOLVED);
+        }
+        return null;
+    }
+}
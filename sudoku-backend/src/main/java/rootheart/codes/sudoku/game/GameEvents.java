@@ -0,0 +1,284 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the changes of a game to its subscribers as server-sent events, so that they do not poll the whole board.
+ * A subscriber first gets a {@code snapshot} event with the board, which is also how a client that reconnects
+ * resynchronizes, and then {@code cells} events with only the cells that changed. The changes are coalesced: the first
+ * change of a game schedules a frame after {@code coalesce-millis}, and that frame has the difference between the
+ * board that was sent last and the current board, so several moves make one frame and a move that is taken back
+ * before the frame is not sent at all. A frame is also sent when only the status changed.
+ * <p>
+ * The status of a frame is for the board of the frame: conflicts and complete boards are known from the occupancy of
+ * the game, which is read with the board under the lock of the game. Whether a board without conflicts can be solved
+ * is taken from the evaluation of the last change, but only if it was made for the same board. Otherwise the board has
+ * changed again, and the frame that this change schedules sends it.
+ * <p>
+ * Writing an event blocks until the client takes it, so every subscriber has a queue of its own that a send thread
+ * writes, at most one thread per subscriber. The frames are only built with the lock of the channel. A subscriber
+ * whose write has taken more than {@code stall-millis}, or that has more than {@code max-pending-events} events
+ * waiting, is dropped when the next event is queued for it, and it reconnects for a new snapshot.
+ * <p>
+ * A game without subscribers has no channel, so its changes cost only a map lookup.
+ */
+@Slf4j
+@Component
+public class GameEvents {
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String CELLS_EVENT = "cells";
+
+    private final long coalesceMillis;
+    private final long timeoutMillis;
+    private final long stallNanos;
+    private final int maxPendingEvents;
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService frameExecutor;
+    private final ExecutorService sendExecutor;
+
+    public GameEvents(@Value("${sudoku.game-events.coalesce-millis:50}") long coalesceMillis,
+                      @Value("${sudoku.game-events.timeout-millis:600000}") long timeoutMillis,
+                      @Value("${sudoku.game-events.stall-millis:5000}") long stallMillis,
+                      @Value("${sudoku.game-events.max-pending-events:32}") int maxPendingEvents) {
+        this.coalesceMillis = coalesceMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMillis);
+        this.maxPendingEvents = maxPendingEvents;
+        frameExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sendExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "game-events-send");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        frameExecutor.shutdownNow();
+        sendExecutor.shutdownNow();
+        for (Channel channel : channels.values()) {
+            synchronized (channel) {
+                channel.subscribers.forEach(subscriber -> subscriber.emitter.complete());
+            }
+        }
+    }
+
+    /**
+     * Subscribes to the changes of a game, the snapshot is the current board and status of the game.
+     */
+    public SseEmitter subscribe(Game game, GameSnapshot snapshot) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribe(game, snapshot, emitter);
+        return emitter;
+    }
+
+    void subscribe(Game game, GameSnapshot snapshot, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        while (true) {
+            Channel channel = channels.computeIfAbsent(game.getId(), gameId -> new Channel(game, snapshot));
+            synchronized (channel) {
+                if (channel.closed) {
+                    continue;
+                }
+                // the snapshot is the board the other subscribers have, the changes after it come with the next
+                // frame, and it is queued with the lock so that it comes before that frame
+                subscriber.enqueue(SNAPSHOT_EVENT, new GameDto(game.getId(), channel.board.toBoardString(), null,
+                        channel.evaluation.getStatus(), channel.evaluation.getConflicts()));
+                channel.subscribers.add(subscriber);
+            }
+            emitter.onCompletion(() -> unsubscribe(channel, subscriber));
+            emitter.onTimeout(emitter::complete);
+            emitter.onError(error -> unsubscribe(channel, subscriber));
+            return;
+        }
+    }
+
+    /**
+     * Tells the subscribers of a game that it changed, the snapshot is the board and status after the change.
+     */
+    public void changed(Game game, GameSnapshot snapshot) {
+        Channel channel = channels.get(game.getId());
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            // an evicted game is loaded again as a new object
+            channel.game = game;
+            channel.lastChange = snapshot;
+            if (!channel.frameScheduled && !channel.closed) {
+                channel.frameScheduled = true;
+                frameExecutor.schedule(() -> sendFrame(channel), coalesceMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void sendFrame(Channel channel) {
+        try {
+            Game game;
+            synchronized (channel) {
+                // a change after this point schedules a frame of its own
+                channel.frameScheduled = false;
+                game = channel.game;
+            }
+            PackedBoard board;
+            GameEvaluation evaluation;
+            synchronized (game) {
+                board = game.getBoard().copy();
+                evaluation = GameEvaluation.of(game.occupancy());
+            }
+            GameDeltaDto frame;
+            List<Subscriber> subscribers;
+            synchronized (channel) {
+                if (evaluation == null) {
+                    if (!channel.lastChange.getBoard().equals(board)) {
+                        return;
+                    }
+                    evaluation = channel.lastChange.getEvaluation();
+                }
+                List<CellDelta> cells = new ArrayList<>();
+                for (int cellIndex = 0; cellIndex < board.getCellCount(); cellIndex++) {
+                    int number = board.get(cellIndex);
+                    if (number != channel.board.get(cellIndex)) {
+                        cells.add(new CellDelta(cellIndex, number));
+                    }
+                }
+                if (cells.isEmpty() && evaluation.equals(channel.evaluation)) {
+                    return;
+                }
+                channel.board = board;
+                channel.evaluation = evaluation;
+                frame = new GameDeltaDto(game.getId(), cells, channel.evaluation.getStatus(),
+                        channel.evaluation.getConflicts());
+                subscribers = new ArrayList<>(channel.subscribers);
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.enqueue(CELLS_EVENT, frame)) {
+                    unsubscribe(channel, subscriber);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not send the changes of a game", e);
+        }
+    }
+
+    private void unsubscribe(Channel channel, Subscriber subscriber) {
+        synchronized (channel) {
+            channel.subscribers.remove(subscriber);
+            if (channel.subscribers.isEmpty() && !channel.closed) {
+                channel.closed = true;
+                channels.remove(channel.gameId, channel);
+            }
+        }
+    }
+
+    /**
+     * The subscribers of a game with the board and status they were sent last, guarded by its own lock.
+     */
+    private static class Channel {
+        private final long gameId;
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private Game game;
+        private PackedBoard board;
+        private GameEvaluation evaluation;
+        /** The board and status after the last change. */
+        private GameSnapshot lastChange;
+        private boolean frameScheduled;
+        private boolean closed;
+
+        Channel(Game game, GameSnapshot snapshot) {
+            gameId = game.getId();
+            this.game = game;
+            board = snapshot.getBoard();
+            evaluation = snapshot.getEvaluation();
+            lastChange = snapshot;
+        }
+    }
+
+    /**
+     * A client with the events that are not written to it yet.
+     */
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> events = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingEvents = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        /** When the write that is in progress started, 0 if no event is being written. */
+        private volatile long writeStartedNanos;
+        private volatile boolean dropped;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues an event, returns false if the subscriber is dropped because it stalled.
+         */
+        boolean enqueue(String name, Object data) {
+            if (dropped) {
+                return false;
+            }
+            long writeStarted = writeStartedNanos;
+            if ((writeStarted != 0 && System.nanoTime() - writeStarted > stallNanos)
+                    || pendingEvents.incrementAndGet() > maxPendingEvents) {
+                dropped = true;
+                // the stalled write holds the emitter, so it is completed on a send thread
+                sendExecutor.execute(emitter::complete);
+                return false;
+            }
+            events.add(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            if (sending.compareAndSet(false, true)) {
+                sendExecutor.execute(this::sendPending);
+            }
+            return true;
+        }
+
+        private void sendPending() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = events.poll()) != null) {
+                    pendingEvents.decrementAndGet();
+                    if (!dropped) {
+                        send(event);
+                    }
+                }
+                sending.set(false);
+            } while (!events.isEmpty() && sending.compareAndSet(false, true));
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) {
+            writeStartedNanos = System.nanoTime();
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // the client went away
+                dropped = true;
+                emitter.completeWithError(e);
+            } finally {
+                writeStartedNanos = 0;
+            }
+        }
+    }
+}
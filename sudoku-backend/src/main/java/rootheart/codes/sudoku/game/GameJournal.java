@@ -0,0 +1,142 @@
+package rootheart.codes.sudoku.game;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the moves of the games as an append-only journal. Every move is one small row, and every
+ * {@code snapshot-interval} moves the current board is written to the game as a new snapshot. The board of a loaded
+ * game is restored from its snapshot and the moves between the snapshot and the move count, forwards with the new
+ * numbers or backwards with the previous numbers, so undoing and redoing moves just moves the move count through the
+ * journal. A new move after an undo drops the moves that could have been redone.
+ * <p>
+ * A loaded game keeps its journal in a {@link JournalBuffer}, and the changes are written later with
+ * {@link #write}, one game per transaction, so that a game that cannot be written does not hold back the others. The
+ * other methods must be called with the lock of the game.
+ */
+@Component
+public class GameJournal {
+    private final GameRepository gameRepository;
+    private final GameMoveRepository moveRepository;
+    private final int snapshotInterval;
+
+    public GameJournal(GameRepository gameRepository,
+                       GameMoveRepository moveRepository,
+                       @Value("${sudoku.journal.snapshot-interval:20}") int snapshotInterval) {
+        this.gameRepository = gameRepository;
+        this.moveRepository = moveRepository;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Loads the journal of a game and restores its board.
+     */
+    public void load(Game game) {
+        JournalBuffer journal = new JournalBuffer();
+        if (game.getJournalLength() > 0) {
+            journal.moves.addAll(moveRepository.findByGameIdAndMoveNumberBetweenOrderByMoveNumber(game.getId(), 1,
+                    game.getJournalLength()));
+        }
+        journal.writtenMoves = journal.moves.size();
+        game.setJournal(journal);
+
+        PackedBoard board = game.getSnapshot().copy();
+        for (int moveNumber = game.getSnapshotMoveCount() + 1; moveNumber <= game.getMoveCount(); moveNumber++) {
+            GameMove move = journal.moves.get(moveNumber - 1);
+            board.set(move.getCellIndex(), move.getNumber());
+        }
+        for (int moveNumber = game.getSnapshotMoveCount(); moveNumber > game.getMoveCount(); moveNumber--) {
+            GameMove move = journal.moves.get(moveNumber - 1);
+            board.set(move.getCellIndex(), move.getPreviousNumber());
+        }
+        game.restore(board);
+    }
+
+    public void move(Game game, int column, int row, int number) {
+        JournalBuffer journal = game.getJournal();
+        if (game.getJournalLength() > game.getMoveCount()) {
+            journal.truncate(game.getMoveCount());
+            if (game.getSnapshotMoveCount() > game.getMoveCount()) {
+                game.takeSnapshot();
+            }
+        }
+        int previousNumber = game.set(column, row, number);
+        int cellIndex = (row - 1) * game.getBoard().getMaxValue() + column - 1;
+        int moveNumber = game.getMoveCount() + 1;
+        journal.moves.add(new GameMove(game.getId(), moveNumber, cellIndex, number, previousNumber));
+        game.setJournalLength(moveNumber);
+        moveTo(game, moveNumber);
+    }
+
+    /**
+     * Takes back the last move, returns false if there is no move to take back.
+     */
+    public boolean undo(Game game) {
+        if (game.getMoveCount() == 0) {
+            return false;
+        }
+        GameMove move = game.getJournal().moves.get(game.getMoveCount() - 1);
+        game.setCell(move.getCellIndex(), move.getPreviousNumber());
+        moveTo(game, game.getMoveCount() - 1);
+        return true;
+    }
+
+    /**
+     * Makes the last move that was taken back again, returns false if there is no such move.
+     */
+    public boolean redo(Game game) {
+        if (game.getMoveCount() == game.getJournalLength()) {
+            return false;
+        }
+        GameMove move = game.getJournal().moves.get(game.getMoveCount());
+        game.setCell(move.getCellIndex(), move.getNumber());
+        moveTo(game, game.getMoveCount() + 1);
+        return true;
+    }
+
+    /**
+     * Returns the board the game started with, restored backwards from the snapshot.
+     */
+    public PackedBoard initialBoard(Game game) {
+        PackedBoard board = game.getSnapshot().copy();
+        List<GameMove> moves = game.getJournal().moves;
+        for (int moveNumber = game.getSnapshotMoveCount(); moveNumber > 0; moveNumber--) {
+            board.set(moves.get(moveNumber - 1).getCellIndex(), moves.get(moveNumber - 1).getPreviousNumber());
+        }
+        return board;
+    }
+
+    /**
+     * Returns the moves that lead from the initial board to the current board.
+     */
+    public List<GameMove> moves(Game game) {
+        return new ArrayList<>(game.getJournal().moves.subList(0, game.getMoveCount()));
+    }
+
+    /**
+     * Writes the changes of a game in one transaction: the moves that cannot be redone anymore are deleted, the new
+     * moves are inserted in JDBC batches and the snapshot and the move counts of the game are updated with one
+     * statement, without loading the game.
+     */
+    @Transactional
+    public void write(JournalFlush flush) {
+        if (flush.getDeleteAfter() >= 0) {
+            moveRepository.deleteByGameIdAndMoveNumberGreaterThan(flush.getGameId(), flush.getDeleteAfter());
+        }
+        moveRepository.saveAll(flush.getMoves());
+        gameRepository.updateJournal(flush.getGameId(), flush.getSnapshot(), flush.getSnapshotMoveCount(),
+                flush.getMoveCount(), flush.getJournalLength());
+    }
+
+    private void moveTo(Game game, int moveCount) {
+        game.setMoveCount(moveCount);
+        if (Math.abs(moveCount - game.getSnapshotMoveCount()) >= snapshotInterval) {
+            game.takeSnapshot();
+        }
+        game.getJournal().dirty = true;
+    }
+}
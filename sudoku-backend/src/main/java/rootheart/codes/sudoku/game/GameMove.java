@@ -0,0 +1,44 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * A move in the journal of a game. It keeps the number that was in the cell before, so that the move can be undone
+ * and the journal can be applied backwards from a snapshot. The ids come from a sequence that hands out blocks of ids,
+ * so that the moves can be inserted in batches.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "gameId, moveNumber", unique = true))
+@Getter
+@Setter
+@NoArgsConstructor
+public class GameMove {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_move_ids")
+    @SequenceGenerator(name = "game_move_ids", allocationSize = 50)
+    private long id;
+    private long gameId;
+    /** The number of the move in the game, counted from 1. */
+    private int moveNumber;
+    private short cellIndex;
+    private byte number;
+    private byte previousNumber;
+
+    public GameMove(long gameId, int moveNumber, int cellIndex, int number, int previousNumber) {
+        this.gameId = gameId;
+        this.moveNumber = moveNumber;
+        this.cellIndex = (short) cellIndex;
+        this.number = (byte) number;
+        this.previousNumber = (byte) previousNumber;
+    }
+}
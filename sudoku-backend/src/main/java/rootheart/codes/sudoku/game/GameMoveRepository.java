@@ -0,0 +1,19 @@
+package rootheart.codes.sudoku.game;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GameMoveRepository extends JpaRepository<GameMove, Long> {
+    GameMove findByGameIdAndMoveNumber(long gameId, int moveNumber);
+
+    List<GameMove> findByGameIdAndMoveNumberBetweenOrderByMoveNumber(long gameId, int first, int last);
+
+    @Modifying
+    @Query("delete from GameMove m where m.gameId = ?1 and m.moveNumber > ?2")
+    void deleteByGameIdAndMoveNumberGreaterThan(long gameId, int moveNumber);
+}
@@ -0,0 +1,17 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The board a game started with and the moves that lead to its current board, without the moves that were undone.
+ */
+@Getter
+@RequiredArgsConstructor
+public class GameReplayDto {
+    private final long gameId;
+    private final String initialBoard;
+    private final List<MoveDto> moves;
+}
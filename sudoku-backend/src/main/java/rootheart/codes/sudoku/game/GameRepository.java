@@ -1,10 +1,16 @@
 package rootheart.codes.sudoku.game;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
-import rootheart.codes.sudoku.user.SudokuUser;
 
 @Repository
 public interface GameRepository extends JpaRepository<Game, Long> {
-    Game findByPlayerAndId(SudokuUser player, long id);
+    Game findByIdAndPlayerId(long id, long playerId);
+
+    @Modifying
+    @Query("update Game g set g.snapshot = ?2, g.snapshotMoveCount = ?3, g.moveCount = ?4, g.journalLength = ?5"
+            + " where g.id = ?1")
+    void updateJournal(long id, PackedBoard snapshot, int snapshotMoveCount, int moveCount, int journalLength);
 }
@@ -1,33 +1,154 @@
 package rootheart.codes.sudoku.game;
 
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import rootheart.codes.sudoku.generator.Difficulty;
+import rootheart.codes.sudoku.generator.PuzzlePool;
+import rootheart.codes.sudoku.solver.BitboardSolver;
 import rootheart.codes.sudoku.user.SudokuUser;
 
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
 @Service
-@RequiredArgsConstructor
 public class GameService {
     private final GameRepository gameRepository;
+    private final PuzzlePool puzzlePool;
+    private final GameJournal gameJournal;
+    private final ActiveGames activeGames;
+    private final long moveNodeLimit;
+    private final long validateNodeLimit;
+    private final ThreadLocal<BitboardSolver> solvers = ThreadLocal.withInitial(BitboardSolver::new);
+
+    public GameService(GameRepository gameRepository,
+                       PuzzlePool puzzlePool,
+                       GameJournal gameJournal,
+                       ActiveGames activeGames,
+                       @Value("${sudoku.evaluation.move-node-limit:2000}") long moveNodeLimit,
+                       @Value("${sudoku.evaluation.validate-node-limit:50000}") long validateNodeLimit) {
+        this.gameRepository = gameRepository;
+        this.puzzlePool = puzzlePool;
+        this.gameJournal = gameJournal;
+        this.activeGames = activeGames;
+        this.moveNodeLimit = moveNodeLimit;
+        this.validateNodeLimit = validateNodeLimit;
+    }
 
-    public Game create(SudokuUser player) {
-        Game game = new Game();
+    /**
+     * Creates a game with a puzzle of the given difficulty from the pool, or with an empty board if the difficulty is
+     * null.
+     */
+    public Game create(SudokuUser player, int size, Difficulty difficulty) {
+        Game game = new Game(size);
+        if (difficulty != null) {
+            game.setBoard(PackedBoard.of(puzzlePool.take(size, difficulty)));
+        }
         game.setPlayer(player);
-        return gameRepository.save(game);
+        game = gameRepository.save(game);
+        activeGames.add(game);
+        return game;
     }
 
-    public Game get(SudokuUser player, long id) {
-        return gameRepository.findByPlayerAndId(player, id);
+    /**
+     * Returns the active game, which is loaded and restored from its snapshot and journal if it is not active.
+     */
+    public Game get(long playerId, long id) {
+        return activeGames.get(playerId, id);
     }
 
-    public Game makeMove(SudokuUser player, long id, int x, int y, int number) {
-        Game game = get(player, id);
-        game.set(x, y, number);
-        gameRepository.save(game); // TODO why is this necessary?
-        return game;
+    public Game makeMove(long playerId, long id, int x, int y, int number) {
+        return update(playerId, id, game -> gameJournal.move(game, x, y, number));
+    }
+
+    public Game undo(long playerId, long id) {
+        return update(playerId, id, gameJournal::undo);
+    }
+
+    public Game redo(long playerId, long id) {
+        return update(playerId, id, gameJournal::redo);
+    }
+
+    /**
+     * Changes an active game with its lock. The game is loaded again if it was evicted while waiting for the lock.
+     */
+    private Game update(long playerId, long id, Consumer<Game> change) {
+        while (true) {
+            Game game = get(playerId, id);
+            if (game == null) {
+                return null;
+            }
+            synchronized (game) {
+                if (!activeGames.isClosed(game)) {
+                    change.accept(game);
+                    return game;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the initial board of a game and the moves that lead to its current board, or null if the player has no
+     * such game.
+     */
+    public GameReplayDto replay(long playerId, long id) {
+        Game game = get(playerId, id);
+        if (game == null) {
+            return null;
+        }
+        synchronized (game) {
+            int maxValue = game.getBoard().getMaxValue();
+            List<MoveDto> moves = gameJournal.moves(game).stream()
+                    .map(move -> new MoveDto(move.getCellIndex() % maxValue + 1, move.getCellIndex() / maxValue + 1,
+                            move.getNumber()))
+                    .collect(Collectors.toList());
+            return new GameReplayDto(game.getId(), gameJournal.initialBoard(game).toBoardString(), moves);
+        }
+    }
+
+    /**
+     * Copies the board of a game with its lock, without evaluating it.
+     */
+    public GameSnapshot snapshot(Game game) {
+        synchronized (game) {
+            return new GameSnapshot(game.getId(), game.getBoard().copy(), null);
+        }
+    }
+
+    /**
+     * Evaluates the board of a game and returns it with a copy of the board that was evaluated. Conflicts and complete
+     * boards are known from the occupancy of the rows, columns and blocks, which the game keeps up to date with every
+     * move. Only a board without conflicts is solved to find out whether it can still be solved, on the copy after
+     * the lock of the game is released. This runs on the thread of the move, so the solver gives up after
+     * {@code move-node-limit} nodes, about 10 ms on a 25x25 board, and the status is {@link GameStatus#UNKNOWN} then.
+     */
+    public GameSnapshot evaluate(Game game) {
+        PackedBoard board;
+        synchronized (game) {
+            board = game.getBoard().copy();
+            GameEvaluation evaluation = GameEvaluation.of(game.occupancy());
+            if (evaluation != null) {
+                return new GameSnapshot(game.getId(), board, evaluation);
+            }
+        }
+        return new GameSnapshot(game.getId(), board, checkSolvable(board, moveNodeLimit));
+    }
+
+    /**
+     * Evaluates a board like a game, with up to {@code validate-node-limit} nodes for the solver.
+     */
+    public GameEvaluation evaluate(@NonNull String board) {
+        PackedBoard packedBoard = PackedBoard.of(board);
+        GameEvaluation evaluation = GameEvaluation.of(new BoardOccupancy(packedBoard));
+        return evaluation != null ? evaluation : checkSolvable(packedBoard, validateNodeLimit);
     }
 
-    public GameStatus evaluate(@NonNull String board) {
-        return GameStatus.OK;
+    private GameEvaluation checkSolvable(PackedBoard board, long nodeLimit) {
+        int solutions = solvers.get().countSolutions(board.getSize(), board.toNumbers(), 1, nodeLimit);
+        if (solutions == BitboardSolver.OUT_OF_NODES) {
+            return GameEvaluation.of(GameStatus.UNKNOWN);
+        }
+        return GameEvaluation.of(solutions == 0 ? GameStatus.UNSOLVABLE : GameStatus.OK);
     }
 }
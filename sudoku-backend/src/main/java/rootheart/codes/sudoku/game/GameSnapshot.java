@@ -0,0 +1,17 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A copy of the board of a game, taken with the lock of the game, so that it is not torn by a concurrent move, with
+ * the evaluation of exactly that board.
+ */
+@Getter
+@RequiredArgsConstructor
+public class GameSnapshot {
+    private final long gameId;
+    private final PackedBoard board;
+    /** Null if the board was not evaluated. */
+    private final GameEvaluation evaluation;
+}
@@ -1,5 +1,16 @@
 package rootheart.codes.sudoku.game;
 
 public enum GameStatus {
-    OK
+    /** The board has no conflicts and can still be solved. */
+    OK,
+    /** A number is more than once in a row, column or block. */
+    CONFLICT,
+    /** All cells are filled, but a number is more than once in a row, column or block. */
+    COMPLETE,
+    /** All cells are filled without conflicts. */
+    SOLVED,
+    /** The board has no conflicts, but it cannot be solved anymore. */
+    UNSOLVABLE,
+    /** The board has no conflicts, but the solver ran out of nodes before it found out whether it can be solved. */
+    UNKNOWN
 }
@@ -1,32 +1,49 @@
 package rootheart.codes.sudoku.game;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 
 import java.util.BitSet;
 
-@Getter
-public class Group extends CellList {
-    public Group(int cellCount) {
-        super(cellCount);
+/**
+ * A column, row or block of a board. The cell indexes are shared with all boards of the same size.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class Group {
+    private final Board board;
+    @Getter(AccessLevel.PACKAGE)
+    private final int[] cellIndexes;
+    boolean queued;
+
+    public Cell getCell(int index) {
+        return board.cell(cellIndexes[index]);
+    }
+
+    public int getCellCount() {
+        return cellIndexes.length;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        getCells().forEach(cell -> sb.append(cell.getNumber()));
+        for (int cellIndex : cellIndexes) {
+            sb.append(BoardNotation.characterOf(board.cell(cellIndex).getNumber()));
+        }
         return sb.toString();
     }
 
     public boolean isValid() {
         BitSet b = new BitSet();
-        return getCells().stream()
-                .filter(c -> !c.isEmpty())
-                .allMatch(c -> {
-                    if (b.get(c.getNumber())) {
-                        return false;
-                    }
-                    b.set(c.getNumber());
-                    return true;
-                });
+        for (int cellIndex : cellIndexes) {
+            Cell c = board.cell(cellIndex);
+            if (!c.isEmpty()) {
+                if (b.get(c.getNumber())) {
+                    return false;
+                }
+                b.set(c.getNumber());
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,55 @@
+package rootheart.codes.sudoku.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The journal of an active game in memory, with the changes that are not written to the database yet. It is guarded
+ * by the lock of its game.
+ */
+class JournalBuffer {
+    /** The moves of the journal, the move with number n at index n - 1. */
+    final List<GameMove> moves = new ArrayList<>();
+    /** The number of moves at the start of the list that are in the database. */
+    int writtenMoves;
+    /** The moves after this move number must be deleted from the database before new moves are written, or -1. */
+    int deleteAfter = -1;
+    boolean dirty;
+    /** Set when the game leaves the active games, a closed game must be loaded again before it is changed. */
+    boolean closed;
+
+    /**
+     * Takes the changes that are not written yet, assuming they will be.
+     */
+    JournalFlush takeChanges(Game game) {
+        JournalFlush flush = new JournalFlush(game.getId(), deleteAfter, writtenMoves,
+                new ArrayList<>(moves.subList(writtenMoves, moves.size())), game.getSnapshot(),
+                game.getSnapshotMoveCount(), game.getMoveCount(), game.getJournalLength());
+        writtenMoves = moves.size();
+        deleteAfter = -1;
+        dirty = false;
+        return flush;
+    }
+
+    /**
+     * Gives back the changes of a flush that could not be written, so that the next flush writes them again.
+     */
+    void giveBack(JournalFlush flush) {
+        writtenMoves = Math.min(writtenMoves, flush.getFirstMove());
+        if (flush.getDeleteAfter() >= 0) {
+            deleteAfter = deleteAfter < 0 ? flush.getDeleteAfter() : Math.min(deleteAfter, flush.getDeleteAfter());
+        }
+        dirty = true;
+    }
+
+    /**
+     * Removes the moves after the given move number, which can no longer be redone.
+     */
+    void truncate(int moveNumber) {
+        moves.subList(moveNumber, moves.size()).clear();
+        if (writtenMoves > moveNumber) {
+            writtenMoves = moveNumber;
+            deleteAfter = deleteAfter < 0 ? moveNumber : Math.min(deleteAfter, moveNumber);
+        }
+    }
+}
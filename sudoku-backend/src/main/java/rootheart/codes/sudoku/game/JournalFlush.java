@@ -0,0 +1,23 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The changes of a game that are written to the database in one flush.
+ */
+@Getter
+@RequiredArgsConstructor
+class JournalFlush {
+    private final long gameId;
+    private final int deleteAfter;
+    /** The index of the first new move in the journal. */
+    private final int firstMove;
+    private final List<GameMove> moves;
+    private final PackedBoard snapshot;
+    private final int snapshotMoveCount;
+    private final int moveCount;
+    private final int journalLength;
+}
@@ -0,0 +1,12 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class MoveDto {
+    private final int column;
+    private final int row;
+    private final int number;
+}
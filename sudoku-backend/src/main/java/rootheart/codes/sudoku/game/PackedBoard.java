@@ -0,0 +1,169 @@
+package rootheart.codes.sudoku.game;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * A board with the cells packed into bits, row by row from the top left cell. Every cell takes 4 bits on boards up to
+ * 9x9 and 5 bits on 16x16 and 25x25 boards, the bits of a cell are written from the most significant to the least
+ * significant bit of each byte, and the unused bits of the last byte are 0. So a 9x9 board takes 41 bytes, with the
+ * first cell in the high nibble of the first byte, a 16x16 board 160 bytes and a 25x25 board 391 bytes. The number of
+ * bytes tells the size of the board.
+ * <p>
+ * Cells are updated in place, so a board must not be shared between threads that change it.
+ */
+public final class PackedBoard implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Getter
+    private final int size;
+    @Getter
+    private final int maxValue;
+    private final int bitsPerCell;
+    private final byte[] bytes;
+
+    public PackedBoard(int size) {
+        if (size < BoardNotation.MIN_SIZE || size > BoardNotation.MAX_SIZE) {
+            throw new IllegalArgumentException("unsupported size " + size);
+        }
+        this.size = size;
+        maxValue = size * size;
+        bitsPerCell = maxValue < 16 ? 4 : 5;
+        bytes = new byte[byteCount(size)];
+    }
+
+    public static PackedBoard of(String boardString) {
+        PackedBoard board = new PackedBoard(BoardNotation.sizeOf(boardString.length()));
+        for (int cellIndex = 0; cellIndex < boardString.length(); cellIndex++) {
+            int number = BoardNotation.numberOf(boardString.charAt(cellIndex));
+            if (number < 0 || number > board.maxValue) {
+                throw new IllegalArgumentException("invalid character at " + cellIndex + " of " + boardString);
+            }
+            board.set(cellIndex, number);
+        }
+        return board;
+    }
+
+    /**
+     * Reads a board from its packed bytes, the bytes are copied.
+     *
+     * @throws IllegalArgumentException if no board has that many bytes or a cell holds an invalid number
+     */
+    public static PackedBoard of(byte[] bytes) {
+        for (int size = BoardNotation.MIN_SIZE; size <= BoardNotation.MAX_SIZE; size++) {
+            if (byteCount(size) == bytes.length) {
+                PackedBoard board = new PackedBoard(size);
+                System.arraycopy(bytes, 0, board.bytes, 0, bytes.length);
+                for (int cellIndex = 0; cellIndex < board.getCellCount(); cellIndex++) {
+                    if (board.get(cellIndex) > board.maxValue) {
+                        throw new IllegalArgumentException("invalid number at " + cellIndex);
+                    }
+                }
+                return board;
+            }
+        }
+        throw new IllegalArgumentException("unsupported number of bytes " + bytes.length);
+    }
+
+    public static PackedBoard ofBase64(String base64) {
+        return of(Base64.getDecoder().decode(base64));
+    }
+
+    /**
+     * Returns the number of bytes of a packed board with the given block size.
+     */
+    public static int byteCount(int size) {
+        int maxValue = size * size;
+        int bits = maxValue * maxValue * (maxValue < 16 ? 4 : 5);
+        return (bits + 7) / 8;
+    }
+
+    public int getCellCount() {
+        return maxValue * maxValue;
+    }
+
+    /**
+     * Returns the number in the cell, 0 for an empty cell.
+     */
+    public int get(int cellIndex) {
+        int bit = cellIndex * bitsPerCell;
+        int index = bit >> 3;
+        int shift = 16 - bitsPerCell - (bit & 7);
+        int word = (bytes[index] & 0xff) << 8;
+        if (shift < 8) {
+            word |= bytes[index + 1] & 0xff;
+        }
+        return (word >> shift) & ((1 << bitsPerCell) - 1);
+    }
+
+    public void set(int cellIndex, int number) {
+        int bit = cellIndex * bitsPerCell;
+        int index = bit >> 3;
+        int shift = 16 - bitsPerCell - (bit & 7);
+        int mask = ((1 << bitsPerCell) - 1) << shift;
+        int value = number << shift;
+        bytes[index] = (byte) ((bytes[index] & ~(mask >> 8)) | (value >> 8));
+        if (shift < 8) {
+            bytes[index + 1] = (byte) ((bytes[index + 1] & ~mask) | value);
+        }
+    }
+
+    public int get(int column, int row) {
+        return get(row * maxValue + column);
+    }
+
+    public void set(int column, int row, int number) {
+        set(row * maxValue + column, number);
+    }
+
+    public PackedBoard copy() {
+        PackedBoard copy = new PackedBoard(size);
+        System.arraycopy(bytes, 0, copy.bytes, 0, bytes.length);
+        return copy;
+    }
+
+    /**
+     * Returns the numbers of the cells in row-major order, 0 for an empty cell.
+     */
+    public int[] toNumbers() {
+        int[] numbers = new int[getCellCount()];
+        for (int cellIndex = 0; cellIndex < numbers.length; cellIndex++) {
+            numbers[cellIndex] = get(cellIndex);
+        }
+        return numbers;
+    }
+
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    public String toBase64() {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    public String toBoardString() {
+        char[] chars = new char[getCellCount()];
+        for (int cellIndex = 0; cellIndex < chars.length; cellIndex++) {
+            chars[cellIndex] = BoardNotation.characterOf(get(cellIndex));
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PackedBoard && Arrays.equals(bytes, ((PackedBoard) other).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return toBoardString();
+    }
+}
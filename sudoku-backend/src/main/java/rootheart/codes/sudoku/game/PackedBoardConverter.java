@@ -0,0 +1,20 @@
+package rootheart.codes.sudoku.game;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a {@link PackedBoard} as its packed bytes.
+ */
+@Converter
+public class PackedBoardConverter implements AttributeConverter<PackedBoard, byte[]> {
+    @Override
+    public byte[] convertToDatabaseColumn(PackedBoard board) {
+        return board == null ? null : board.toBytes();
+    }
+
+    @Override
+    public PackedBoard convertToEntityAttribute(byte[] bytes) {
+        return bytes == null ? null : PackedBoard.of(bytes);
+    }
+}
@@ -0,0 +1,15 @@
+package rootheart.codes.sudoku.game;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the {@link SolverExecutor} cannot take more work, answered with 503 so that the client tries again
+ * later.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SolverBusyException extends RuntimeException {
+    public SolverBusyException() {
+        super("The solver is busy, try again later");
+    }
+}
@@ -0,0 +1,50 @@
+package rootheart.codes.sudoku.game;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the requests that solve or generate boards on a few threads of their own, so that a hard board does not hold
+ * a servlet thread and the requests that make moves are always served. The work waits in a bounded queue, and when
+ * the queue is full it is rejected at once with a {@link SolverBusyException} instead of waiting.
+ */
+@Component
+public class SolverExecutor {
+    private final ThreadPoolExecutor executor;
+
+    public SolverExecutor(@Value("${sudoku.solver-executor.threads:2}") int threads,
+                          @Value("${sudoku.solver-executor.queue-capacity:100}") int queueCapacity) {
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the future result of the work.
+     *
+     * @throws SolverBusyException if there are already as many waiting tasks as the queue can take
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            throw new SolverBusyException();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package rootheart.codes.sudoku.game;
+
+import java.util.Arrays;
+
+/**
+ * Undo log for in-place search. Before a cell is changed for the first time after a mark, its previous state is
+ * recorded, so rolling back to the mark only touches the cells that actually changed.
+ */
+class Trail {
+    private Cell[] cells = new Cell[256];
+    private int[] candidates = new int[256];
+    private int[] numbers = new int[256];
+    private boolean[] singleCandidates = new boolean[256];
+    private int[] stamps = new int[256];
+    private int size;
+
+    private int[] markSizes = new int[64];
+    private int[] markStamps = new int[64];
+    private int[] markEmptyCellCounts = new int[64];
+    private int markCount;
+
+    private int stamp;
+    private int lastStamp;
+
+    int mark(int emptyCellCount) {
+        if (markCount == markSizes.length) {
+            markSizes = Arrays.copyOf(markSizes, markCount * 2);
+            markStamps = Arrays.copyOf(markStamps, markCount * 2);
+            markEmptyCellCounts = Arrays.copyOf(markEmptyCellCounts, markCount * 2);
+        }
+        markSizes[markCount] = size;
+        markStamps[markCount] = stamp;
+        markEmptyCellCounts[markCount] = emptyCellCount;
+        stamp = ++lastStamp;
+        return markCount++;
+    }
+
+    int getEmptyCellCount(int mark) {
+        return markEmptyCellCounts[mark];
+    }
+
+    void rollback(int mark) {
+        int markSize = markSizes[mark];
+        while (size > markSize) {
+            size--;
+            Cell cell = cells[size];
+            cell.restore(candidates[size], numbers[size], singleCandidates[size], stamps[size]);
+            cells[size] = null;
+        }
+        stamp = markStamps[mark];
+        markCount = mark;
+    }
+
+    void save(Cell cell) {
+        if (markCount == 0 || cell.getTrailStamp() == stamp) {
+            return;
+        }
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+            candidates = Arrays.copyOf(candidates, size * 2);
+            numbers = Arrays.copyOf(numbers, size * 2);
+            singleCandidates = Arrays.copyOf(singleCandidates, size * 2);
+            stamps = Arrays.copyOf(stamps, size * 2);
+        }
+        cells[size] = cell;
+        candidates[size] = cell.getCandidates().getBinaryEncodedNumbers();
+        numbers[size] = cell.getNumber();
+        singleCandidates[size] = cell.isSingleCandidate();
+        stamps[size] = cell.getTrailStamp();
+        size++;
+        cell.setTrailStamp(stamp);
+    }
+}
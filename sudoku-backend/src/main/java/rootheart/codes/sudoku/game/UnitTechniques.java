@@ -0,0 +1,203 @@
+package rootheart.codes.sudoku.game;
+
+import rootheart.codes.sudoku.solver.NumberSet;
+import rootheart.codes.sudoku.solver.Technique;
+
+/**
+ * Subset and fish techniques. Each one works on bitmasks of a whole unit: the candidates of its cells, the positions
+ * of each number in the unit, or for fish the columns (rows) of a number in each row (column). All of them come down
+ * to finding {@code size} masks whose union has exactly {@code size} bits:
+ * <ul>
+ * <li>naked subsets: {@code size} cells with only {@code size} candidates between them, so no other cell of the unit
+ * can hold these numbers</li>
+ * <li>hidden subsets: {@code size} numbers that fit into only {@code size} cells, so these cells cannot hold any other
+ * number</li>
+ * <li>X-Wing and Swordfish: {@code size} rows in which a number fits into only {@code size} columns, so the number can
+ * be removed from these columns in all other rows (and the same with rows and columns swapped)</li>
+ * </ul>
+ */
+class UnitTechniques {
+    private final Board board;
+    private final Group[] rows;
+    private final Group[] columns;
+    private final Group[][] unitsByKind;
+    private final int maxValue;
+    private final int[] masks;
+    private final NumberSet numbers = new NumberSet();
+
+    UnitTechniques(Board board, Group[] columns, Group[] rows, Group[] blocks) {
+        this.board = board;
+        this.rows = rows;
+        this.columns = columns;
+        unitsByKind = new Group[][]{rows, columns, blocks};
+        maxValue = board.getMaxValue();
+        masks = new int[maxValue + 1];
+    }
+
+    /**
+     * Applies the technique until it found something to eliminate.
+     *
+     * @return whether candidates were eliminated
+     */
+    boolean apply(Technique technique) {
+        switch (technique) {
+            case HIDDEN_PAIRS:
+                return hiddenSubsets(2);
+            case NAKED_TRIPLES:
+                return nakedSubsets(3);
+            case HIDDEN_TRIPLES:
+                return hiddenSubsets(3);
+            case X_WING:
+                return fish(2);
+            case NAKED_QUADS:
+                return nakedSubsets(4);
+            case HIDDEN_QUADS:
+                return hiddenSubsets(4);
+            case SWORDFISH:
+                return fish(3);
+            default:
+                throw new IllegalArgumentException(technique + " is not a unit technique");
+        }
+    }
+
+    private boolean nakedSubsets(int size) {
+        for (Group[] units : unitsByKind) {
+            for (Group unit : units) {
+                int[] cellIndexes = unit.getCellIndexes();
+                for (int position = 0; position < maxValue; position++) {
+                    Cell cell = board.cell(cellIndexes[position]);
+                    masks[position] = cell.isEmpty() ? cell.getCandidates().getBinaryEncodedNumbers() : 0;
+                }
+                int subset = findSubset(maxValue, size);
+                if (subset != 0) {
+                    numbers.setBinaryEncodedNumbers(union(subset));
+                    for (int position = 0; position < maxValue; position++) {
+                        if ((subset & 1 << position) == 0) {
+                            board.cell(cellIndexes[position]).removeCandidates(numbers);
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hiddenSubsets(int size) {
+        for (Group[] units : unitsByKind) {
+            for (Group unit : units) {
+                int[] cellIndexes = unit.getCellIndexes();
+                fillPositionMasks(cellIndexes);
+                int subset = findSubset(maxValue + 1, size);
+                if (subset != 0) {
+                    numbers.setBinaryEncodedNumbers(~subset);
+                    for (int positions = union(subset); positions != 0; positions &= positions - 1) {
+                        board.cell(cellIndexes[Integer.numberOfTrailingZeros(positions)]).removeCandidates(numbers);
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean fish(int size) {
+        for (int number = 1; number <= maxValue; number++) {
+            if (fish(rows, columns, number, size) || fish(columns, rows, number, size)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean fish(Group[] baseUnits, Group[] coverUnits, int number, int size) {
+        for (int base = 0; base < maxValue; base++) {
+            masks[base] = 0;
+            int[] cellIndexes = baseUnits[base].getCellIndexes();
+            for (int position = 0; position < maxValue; position++) {
+                Cell cell = board.cell(cellIndexes[position]);
+                if (cell.isEmpty() && cell.getCandidates().contains(number)) {
+                    masks[base] |= 1 << position;
+                }
+            }
+        }
+        int subset = findSubset(maxValue, size);
+        if (subset == 0) {
+            return false;
+        }
+        for (int covers = union(subset); covers != 0; covers &= covers - 1) {
+            int[] cellIndexes = coverUnits[Integer.numberOfTrailingZeros(covers)].getCellIndexes();
+            for (int base = 0; base < maxValue; base++) {
+                if ((subset & 1 << base) == 0) {
+                    board.cell(cellIndexes[base]).removeCandidate(number);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the mask of each number to the positions of the empty cells of the unit that have it as a candidate.
+     */
+    private void fillPositionMasks(int[] cellIndexes) {
+        for (int number = 0; number <= maxValue; number++) {
+            masks[number] = 0;
+        }
+        for (int position = 0; position < maxValue; position++) {
+            Cell cell = board.cell(cellIndexes[position]);
+            if (cell.isEmpty()) {
+                int candidates = cell.getCandidates().getBinaryEncodedNumbers();
+                for (; candidates != 0; candidates &= candidates - 1) {
+                    masks[Integer.numberOfTrailingZeros(candidates)] |= 1 << position;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds {@code size} of the first {@code count} masks, each with 2 to {@code size} bits, whose union has exactly
+     * {@code size} bits and overlaps with at least one of the other masks, so that something can be eliminated.
+     *
+     * @return the indexes of the chosen masks as bits, or 0 if there is no such subset
+     */
+    private int findSubset(int count, int size) {
+        return findSubset(count, size, 0, 0, 0, 0);
+    }
+
+    private int findSubset(int count, int size, int start, int chosen, int chosenCount, int union) {
+        if (chosenCount == size) {
+            return Integer.bitCount(union) == size && overlapsOthers(count, chosen, union) ? chosen : 0;
+        }
+        for (int i = start; i < count; i++) {
+            int bitCount = Integer.bitCount(masks[i]);
+            if (bitCount < 2 || bitCount > size) {
+                continue;
+            }
+            int newUnion = union | masks[i];
+            if (Integer.bitCount(newUnion) <= size) {
+                int subset = findSubset(count, size, i + 1, chosen | 1 << i, chosenCount + 1, newUnion);
+                if (subset != 0) {
+                    return subset;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private boolean overlapsOthers(int count, int chosen, int union) {
+        for (int i = 0; i < count; i++) {
+            if ((chosen & 1 << i) == 0 && (masks[i] & union) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int union(int subset) {
+        int union = 0;
+        for (int remaining = subset; remaining != 0; remaining &= remaining - 1) {
+            union |= masks[Integer.numberOfTrailingZeros(remaining)];
+        }
+        return union;
+    }
+}
@@ -1,14 +1,221 @@
 package rootheart.codes.sudoku.generator;
 
+import lombok.Getter;
 import rootheart.codes.sudoku.game.Board;
+import rootheart.codes.sudoku.game.BoardNotation;
+import rootheart.codes.sudoku.solver.BitboardSolver;
 
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates boards with exactly one solution. A random complete grid is filled first: the blocks on the diagonal
+ * do not share a row or column, so they are filled with random permutations, and a {@link BitboardSolver} completes
+ * the rest, with new blocks if they cannot be completed. Then clues are removed in random order, and every removal
+ * that makes the solution ambiguous is undone.
+ * <p>
+ * Clues are removed until the board has the target number of clues or no clue can be removed anymore, so a target
+ * of 0 gives minimal boards. With a {@link Symmetry} the clues are removed in groups of symmetric cells, so a board
+ * can end up with one clue more than the target.
+ * <p>
+ * On 16x16 and 25x25 boards a single check for a unique solution can take minutes once a board gets sparse, so every
+ * search of the solver can be limited to a number of nodes on top of one node per cell. A removal whose check runs out
+ * of nodes is undone like an ambiguous one, and a grid that cannot be completed within the limit is filled again, so
+ * the time a board takes is bounded, but the board may keep more clues than the target.
+ * <p>
+ * An instance can be shared between threads, every thread uses its own solver and buffers.
+ */
 public class BoardGenerator {
+    public enum Symmetry {
+        NONE,
+        /** Point symmetric to the center of the board. */
+        ROTATIONAL,
+        /** Symmetric to the vertical axis in the middle of the board. */
+        MIRROR,
+        /** Symmetric to the diagonal from the top left to the bottom right corner. */
+        DIAGONAL
+    }
+
+    @Getter
+    private final int size;
+    @Getter
+    private final int clues;
+    @Getter
+    private final Symmetry symmetry;
+    @Getter
+    private final long nodeLimit;
+
+    private final ThreadLocal<Worker> workers;
+
+    public BoardGenerator() {
+        this(3, 0, Symmetry.NONE);
+    }
+
+    public BoardGenerator(int size, int clues, Symmetry symmetry) {
+        this(size, clues, symmetry, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a generator whose solver gives up after the given number of nodes per search.
+     */
+    public BoardGenerator(int size, int clues, Symmetry symmetry, long nodeLimit) {
+        if (size < BoardNotation.MIN_SIZE || size > BoardNotation.MAX_SIZE) {
+            throw new IllegalArgumentException("unsupported size " + size);
+        }
+        this.size = size;
+        this.clues = clues;
+        this.symmetry = symmetry;
+        this.nodeLimit = nodeLimit;
+        workers = ThreadLocal.withInitial(Worker::new);
+    }
+
     public Board generate() {
-        Board board = new Board();
+        return new Board(generateBoardString(ThreadLocalRandom.current()));
+    }
 
+    /**
+     * Generates a board with the given random numbers, so the same seed gives the same board.
+     */
+    public Board generate(Random random) {
+        return new Board(generateBoardString(random));
+    }
 
+    /**
+     * Generates the given number of boards in parallel on the common fork join pool.
+     */
+    public List<Board> generate(int count) {
+        return IntStream.range(0, count)
+                .parallel()
+                .mapToObj(i -> generate())
+                .collect(Collectors.toList());
+    }
 
-        return board;
+    public String generateBoardString(Random random) {
+        return workers.get().generate(random);
     }
 
+    /**
+     * Generates boards for one thread. The solver, the grid and the cell groups of the symmetry are reused for all
+     * boards of that thread.
+     */
+    private class Worker {
+        private final int maxValue = size * size;
+        private final int cellCount = maxValue * maxValue;
+        private final long searchNodeLimit = nodeLimit > Long.MAX_VALUE - cellCount ? Long.MAX_VALUE
+                : nodeLimit + cellCount;
+        private final BitboardSolver solver = new BitboardSolver();
+        private final int[] numbers = new int[cellCount];
+        private final int[] removed = new int[cellCount];
+        private final int[] solverNumbers = new int[cellCount];
+        private final int[] permutation = new int[maxValue];
+        private final int[][] cellGroups = cellGroups();
+        private final int[][] removalOrder = new int[cellGroups.length][];
+
+        String generate(Random random) {
+            fillGrid(random);
+            removeClues(random);
+            char[] chars = new char[cellCount];
+            for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+                chars[cellIndex] = BoardNotation.characterOf(numbers[cellIndex]);
+            }
+            return new String(chars);
+        }
+
+        private void fillGrid(Random random) {
+            do {
+                for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+                    numbers[cellIndex] = 0;
+                }
+                for (int block = 0; block < size; block++) {
+                    shufflePermutation(random);
+                    for (int i = 0; i < maxValue; i++) {
+                        int row = block * size + i / size;
+                        int column = block * size + i % size;
+                        numbers[row * maxValue + column] = permutation[i];
+                    }
+                }
+                // on 4x4 boards some combinations of the diagonal blocks cannot be completed
+            } while (solver.countSolutions(size, numbers, 1, searchNodeLimit) <= 0);
+        }
+
+        private void removeClues(Random random) {
+            System.arraycopy(cellGroups, 0, removalOrder, 0, cellGroups.length);
+            shuffle(removalOrder, random);
+            int clueCount = cellCount;
+            for (int[] group : removalOrder) {
+                if (clueCount - group.length < clues) {
+                    continue;
+                }
+                for (int cellIndex : group) {
+                    removed[cellIndex] = numbers[cellIndex];
+                    numbers[cellIndex] = 0;
+                }
+                if (hasUniqueSolution()) {
+                    clueCount -= group.length;
+                    if (clueCount == clues) {
+                        return;
+                    }
+                } else {
+                    for (int cellIndex : group) {
+                        numbers[cellIndex] = removed[cellIndex];
+                    }
+                }
+            }
+        }
+
+        private boolean hasUniqueSolution() {
+            System.arraycopy(numbers, 0, solverNumbers, 0, cellCount);
+            return solver.countSolutions(size, solverNumbers, 2, searchNodeLimit) == 1;
+        }
+
+        private void shufflePermutation(Random random) {
+            for (int i = 0; i < maxValue; i++) {
+                permutation[i] = i + 1;
+            }
+            for (int i = maxValue - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int number = permutation[i];
+                permutation[i] = permutation[j];
+                permutation[j] = number;
+            }
+        }
+
+        private void shuffle(int[][] groups, Random random) {
+            for (int i = groups.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int[] group = groups[i];
+                groups[i] = groups[j];
+                groups[j] = group;
+            }
+        }
+
+        /**
+         * Returns the groups of cells that are symmetric to each other, every cell is in exactly one group.
+         */
+        private int[][] cellGroups() {
+            return IntStream.range(0, cellCount)
+                    .mapToObj(cellIndex -> IntStream.of(cellIndex, symmetricCell(cellIndex)).distinct().toArray())
+                    .filter(group -> group[0] <= group[group.length - 1])
+                    .toArray(int[][]::new);
+        }
+
+        private int symmetricCell(int cellIndex) {
+            int row = cellIndex / maxValue;
+            int column = cellIndex % maxValue;
+            switch (symmetry) {
+                case ROTATIONAL:
+                    return (maxValue - 1 - row) * maxValue + maxValue - 1 - column;
+                case MIRROR:
+                    return row * maxValue + maxValue - 1 - column;
+                case DIAGONAL:
+                    return column * maxValue + row;
+                case NONE:
+                default:
+                    return cellIndex;
+            }
+        }
+    }
 }
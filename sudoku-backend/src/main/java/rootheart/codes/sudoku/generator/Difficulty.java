@@ -0,0 +1,26 @@
+package rootheart.codes.sudoku.generator;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * How hard a generated board is, given by the share of cells that are clues. Boards of the hardest difficulty are
+ * minimal, no clue can be removed without losing the unique solution.
+ * <p>
+ * 16x16 and 25x25 boards with fewer clues than their minimum share cannot be generated in reasonable time, so no
+ * difficulty asks for fewer. On 25x25 boards all difficulties therefore ask for the same number of clues.
+ */
+@RequiredArgsConstructor
+public enum Difficulty {
+    EASY(0.45),
+    MEDIUM(0.37),
+    HARD(0);
+
+    /** The minimum share of clues, by block size. */
+    private static final double[] MINIMUM_CLUE_RATIOS = {0, 0, 0, 0, 0.4, 0.5};
+
+    private final double clueRatio;
+
+    public int cluesFor(int size) {
+        return (int) Math.round(Math.max(clueRatio, MINIMUM_CLUE_RATIOS[size]) * size * size * size * size);
+    }
+}
@@ -0,0 +1,137 @@
+package rootheart.codes.sudoku.generator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps generated 9x9 puzzles ready for new games, one bucket per {@link Difficulty}. Taking a puzzle only polls a
+ * queue. When a bucket drops below the low water mark, a background thread fills it up to its capacity again. If a
+ * bucket is empty, the puzzle is generated on the calling thread and counted as a miss. Puzzles of other sizes are
+ * always generated on the calling thread, with the solver limited to {@code node-limit} nodes per search, so that a
+ * 16x16 or 25x25 puzzle takes about a second at most.
+ */
+@Component
+public class PuzzlePool {
+    private static final int POOLED_SIZE = 3;
+
+    private final int capacity;
+    private final int lowWaterMark;
+    private final long nodeLimit;
+    private final ExecutorService refillExecutor;
+    private final Map<Difficulty, Bucket> buckets = new EnumMap<>(Difficulty.class);
+
+    public PuzzlePool(@Value("${sudoku.puzzle-pool.capacity:200}") int capacity,
+                      @Value("${sudoku.puzzle-pool.low-water-mark:50}") int lowWaterMark,
+                      @Value("${sudoku.puzzle-pool.threads:1}") int threads,
+                      @Value("${sudoku.puzzle-pool.node-limit:1000}") long nodeLimit) {
+        this.capacity = capacity;
+        this.lowWaterMark = lowWaterMark;
+        this.nodeLimit = nodeLimit;
+        refillExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "puzzle-pool-refill");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        for (Difficulty difficulty : Difficulty.values()) {
+            buckets.put(difficulty, new Bucket(difficulty, capacity));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        buckets.values().forEach(this::refillIfLow);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refillExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the board string of a puzzle with exactly one solution.
+     */
+    public String take(int size, Difficulty difficulty) {
+        if (size != POOLED_SIZE) {
+            return new BoardGenerator(size, difficulty.cluesFor(size), BoardGenerator.Symmetry.ROTATIONAL, nodeLimit)
+                    .generateBoardString(ThreadLocalRandom.current());
+        }
+        Bucket bucket = buckets.get(difficulty);
+        String puzzle = bucket.puzzles.poll();
+        refillIfLow(bucket);
+        if (puzzle == null) {
+            bucket.misses.increment();
+            return bucket.generator.generateBoardString(ThreadLocalRandom.current());
+        }
+        bucket.taken.increment();
+        return puzzle;
+    }
+
+    public List<PuzzlePoolStatistics> getStatistics() {
+        List<PuzzlePoolStatistics> statistics = new ArrayList<>();
+        for (Bucket bucket : buckets.values()) {
+            long refillNanos = bucket.refillNanos.sum();
+            long generated = bucket.generated.sum();
+            statistics.add(new PuzzlePoolStatistics(bucket.difficulty, bucket.puzzles.size(), capacity, generated,
+                    bucket.taken.sum(), bucket.misses.sum(), refillNanos == 0 ? 0 : generated * 1e9 / refillNanos));
+        }
+        return statistics;
+    }
+
+    private void refillIfLow(Bucket bucket) {
+        if (bucket.puzzles.size() < lowWaterMark && bucket.refilling.compareAndSet(false, true)) {
+            try {
+                refillExecutor.execute(() -> refill(bucket));
+            } catch (RejectedExecutionException e) {
+                // the pool is stopped
+                bucket.refilling.set(false);
+            }
+        }
+    }
+
+    private void refill(Bucket bucket) {
+        try {
+            while (bucket.puzzles.remainingCapacity() > 0 && !Thread.currentThread().isInterrupted()) {
+                long start = System.nanoTime();
+                bucket.puzzles.offer(bucket.generator.generateBoardString(ThreadLocalRandom.current()));
+                bucket.refillNanos.add(System.nanoTime() - start);
+                bucket.generated.increment();
+            }
+        } finally {
+            bucket.refilling.set(false);
+        }
+    }
+
+    private static class Bucket {
+        private final Difficulty difficulty;
+        private final BoardGenerator generator;
+        private final BlockingQueue<String> puzzles;
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private final LongAdder generated = new LongAdder();
+        private final LongAdder taken = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder refillNanos = new LongAdder();
+
+        Bucket(Difficulty difficulty, int capacity) {
+            this.difficulty = difficulty;
+            generator = new BoardGenerator(POOLED_SIZE, difficulty.cluesFor(POOLED_SIZE),
+                    BoardGenerator.Symmetry.ROTATIONAL);
+            puzzles = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package rootheart.codes.sudoku.generator;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/puzzle-pool")
+@RequiredArgsConstructor
+public class PuzzlePoolController {
+    private final PuzzlePool puzzlePool;
+
+    @GetMapping
+    public List<PuzzlePoolStatistics> statistics() {
+        return puzzlePool.getStatistics();
+    }
+}
@@ -0,0 +1,17 @@
+package rootheart.codes.sudoku.generator;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class PuzzlePoolStatistics {
+    private final Difficulty difficulty;
+    private final int depth;
+    private final int capacity;
+    private final long generated;
+    private final long taken;
+    private final long misses;
+    /** Puzzles generated per second while the pool was being refilled. */
+    private final double refillRate;
+}
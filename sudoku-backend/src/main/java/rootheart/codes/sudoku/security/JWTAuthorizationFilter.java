@@ -1,11 +1,11 @@
 package rootheart.codes.sudoku.security;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import rootheart.codes.sudoku.user.SudokuUserService;
+import rootheart.codes.sudoku.user.UserPrincipal;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -16,8 +16,13 @@ import java.util.ArrayList;
 
 public class JWTAuthorizationFilter extends BasicAuthenticationFilter {
 
-    public JWTAuthorizationFilter(AuthenticationManager authManager) {
+    private final TokenVerifier tokenVerifier;
+
+    public JWTAuthorizationFilter(AuthenticationManager authManager,
+                                  SudokuUserService userService,
+                                  long verifiedTokenCacheSize) {
         super(authManager);
+        tokenVerifier = new TokenVerifier(userService, verifiedTokenCacheSize);
     }
 
     @Override
@@ -42,15 +47,10 @@ public class JWTAuthorizationFilter extends BasicAuthenticationFilter {
         if (token == null) {
             return null;
         }
-        // parse the token.
-        String user = JWT.require(Algorithm.HMAC512(SecurityConstants.SECRET.getBytes()))
-                .build()
-                .verify(token.replace(SecurityConstants.BEARER_TOKEN_PREFIX, ""))
-                .getSubject();
-
-        if (user != null) {
-            return new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
+        UserPrincipal principal = tokenVerifier.verify(token.replace(SecurityConstants.BEARER_TOKEN_PREFIX, ""));
+        if (principal == null) {
+            return null;
         }
-        return null;
+        return new UsernamePasswordAuthenticationToken(principal, null, new ArrayList<>());
     }
-}
\ No newline at end of file
+}
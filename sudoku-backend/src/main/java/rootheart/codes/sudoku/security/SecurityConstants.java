@@ -1,5 +1,7 @@
 package rootheart.codes.sudoku.security;
 
+import com.auth0.jwt.algorithms.Algorithm;
+
 import java.util.concurrent.TimeUnit;
 
 public class SecurityConstants {
@@ -8,5 +10,8 @@ public class SecurityConstants {
     public static final String BEARER_TOKEN_PREFIX = "Bearer ";
     public static final String AUTHORIZATION_HEADER = "Authorization";
     public static final String SIGN_UP_URL = "/user/sign-up";
+    public static final String USER_ID_CLAIM = "uid";
+    /** Thread-safe, so it is shared by signing and verifying. */
+    public static final Algorithm ALGORITHM = Algorithm.HMAC512(SECRET.getBytes());
 
 }
@@ -0,0 +1,126 @@
+package rootheart.codes.sudoku.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import rootheart.codes.sudoku.user.SudokuUserService;
+import rootheart.codes.sudoku.user.UserPrincipal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies bearer tokens with one shared verifier and remembers the tokens it verified, so that the repeated requests
+ * of a client do not compute the HMAC again. The tokens are remembered by their SHA-256 digest until they expire, a
+ * token that failed verification is not remembered.
+ */
+class TokenVerifier {
+    private static final JWTVerifier VERIFIER = JWT.require(SecurityConstants.ALGORITHM).build();
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final SudokuUserService userService;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    TokenVerifier(SudokuUserService userService, long maximumSize) {
+        this(userService, maximumSize, Ticker.systemTicker());
+    }
+
+    TokenVerifier(SudokuUserService userService, long maximumSize, Ticker ticker) {
+        this.userService = userService;
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpires())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the user of the token, or null if the token has no subject.
+     *
+     * @throws JWTVerificationException if the token is invalid or expired
+     */
+    UserPrincipal verify(String token) throws JWTVerificationException {
+        String digest = digest(token);
+        VerifiedToken verifiedToken = verifiedTokens.getIfPresent(digest);
+        if (verifiedToken == null) {
+            verifiedToken = verifyAndLoad(token);
+            if (verifiedToken.principal != null) {
+                verifiedTokens.put(digest, verifiedToken);
+            }
+        }
+        return verifiedToken.principal;
+    }
+
+    CacheStats getCacheStatistics() {
+        return verifiedTokens.stats();
+    }
+
+    private VerifiedToken verifyAndLoad(String token) {
+        DecodedJWT jwt = VERIFIER.verify(token);
+        Date expiresAt = jwt.getExpiresAt();
+        long expiresAtMillis = expiresAt == null ? Long.MAX_VALUE : expiresAt.getTime();
+        String user = jwt.getSubject();
+        if (user == null) {
+            return new VerifiedToken(null, expiresAtMillis);
+        }
+        Long userId = jwt.getClaim(SecurityConstants.USER_ID_CLAIM).asLong();
+        if (userId == null) {
+            // tokens that were issued before they had the user id
+            userId = userService.loadUserByUsername(user).getId();
+        }
+        return new VerifiedToken(new UserPrincipal(userId, user), expiresAtMillis);
+    }
+
+    private static String digest(String token) {
+        MessageDigest digest = DIGEST.get();
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @RequiredArgsConstructor
+    private static class VerifiedToken {
+        private final UserPrincipal principal;
+        private final long expiresAtMillis;
+    }
+
+    /**
+     * Keeps a token until its {@code exp}, the remaining time is taken from the wall clock when the token is verified.
+     */
+    private static class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+            if (token.expiresAtMillis == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            long remainingMillis = token.expiresAtMillis - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
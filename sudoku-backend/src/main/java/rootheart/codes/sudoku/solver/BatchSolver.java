@@ -0,0 +1,204 @@
+package rootheart.codes.sudoku.solver;
+
+import rootheart.codes.sudoku.game.BoardNotation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solves many boards of the same size at once. The candidates are stored structure-of-arrays style, one lane per
+ * board, so that the naked single and hidden single propagation runs the same branch-free operation over all lanes
+ * in tight loops over int arrays, which the JIT may vectorize. Boards that are not completely solved by propagation
+ * are finished by a {@link BitboardSolver}. An instance must not be shared between threads.
+ * <p>
+ * Propagation runs until no lane changes any more, so one slow board keeps the whole block busy, and a batch is not
+ * necessarily faster than solving the boards one by one; {@code BatchSolverBenchmark} compares both.
+ */
+public class BatchSolver {
+    private static final int LANES = 256;
+
+    private final BitboardSolver bitboardSolver = new BitboardSolver();
+
+    private int size;
+    private int maxValue;
+    private int cellCount;
+    private int allNumbers;
+    private int[][] units;
+
+    private int[] candidates;
+    private final int[] puzzleOfLane = new int[LANES];
+    private final int[] failed = new int[LANES];
+    private final int[] once = new int[LANES];
+    private final int[] twice = new int[LANES];
+    private final int[] fixed = new int[LANES];
+    private final int[] conflicts = new int[LANES];
+    private final int[] hiddenSingles = new int[LANES];
+    private int[] numbers;
+    private int[] used;
+
+    /**
+     * Solves all boards and returns one result per board, in the same order. The results are the same that
+     * {@link Solver} reports for each board on its own.
+     */
+    public List<SolveResult> solve(List<String> boards) {
+        SolveResult[] results = new SolveResult[boards.size()];
+        if (!boards.isEmpty()) {
+            prepare(boards.get(0).length());
+        }
+        for (int start = 0; start < boards.size(); start += LANES) {
+            solveBlock(boards, start, Math.min(start + LANES, boards.size()), results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void solveBlock(List<String> boards, int start, int end, SolveResult[] results) {
+        int laneCount = 0;
+        for (int index = start; index < end; index++) {
+            String board = boards.get(index);
+            if (board.length() != cellCount) {
+                throw new IllegalArgumentException(board);
+            }
+            if (board.indexOf('0') < 0 && board.indexOf('.') < 0) {
+                results[index] = SolveResult.solved(board);
+            } else if (!load(board, laneCount)) {
+                results[index] = SolveResult.of(SolveResult.Status.INVALID);
+            } else {
+                puzzleOfLane[laneCount++] = index;
+            }
+        }
+
+        Arrays.fill(failed, 0);
+        boolean changed;
+        do {
+            changed = false;
+            for (int[] unit : units) {
+                changed |= propagate(unit, laneCount);
+            }
+        } while (changed);
+
+        for (int lane = 0; lane < laneCount; lane++) {
+            results[puzzleOfLane[lane]] = result(lane);
+        }
+    }
+
+    private void prepare(int length) {
+        int size = BoardNotation.sizeOf(length);
+        if (this.size == size) {
+            return;
+        }
+        this.size = size;
+        maxValue = size * size;
+        cellCount = maxValue * maxValue;
+        allNumbers = ((1 << maxValue) - 1) << 1;
+        candidates = new int[cellCount * LANES];
+        numbers = new int[cellCount];
+        used = new int[3 * maxValue];
+        units = new int[3 * maxValue][maxValue];
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            int rowIndex = cellIndex / maxValue;
+            int columnIndex = cellIndex % maxValue;
+            int blockIndex = (rowIndex / size) * size + columnIndex / size;
+            int indexInBlock = (rowIndex % size) * size + columnIndex % size;
+            units[rowIndex][columnIndex] = cellIndex;
+            units[maxValue + columnIndex][rowIndex] = cellIndex;
+            units[2 * maxValue + blockIndex][indexInBlock] = cellIndex;
+        }
+    }
+
+    private boolean load(String board, int lane) {
+        Arrays.fill(used, 0);
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            int number = BoardNotation.numberOf(board.charAt(cellIndex));
+            if (number == 0) {
+                candidates[cellIndex * LANES + lane] = allNumbers;
+                continue;
+            }
+            int bit = 1 << number;
+            int rowIndex = cellIndex / maxValue;
+            int columnIndex = cellIndex % maxValue;
+            int blockIndex = (rowIndex / size) * size + columnIndex / size;
+            if (number < 0 || number > maxValue
+                    || ((used[rowIndex] | used[maxValue + columnIndex] | used[2 * maxValue + blockIndex]) & bit) != 0) {
+                return false;
+            }
+            used[rowIndex] |= bit;
+            used[maxValue + columnIndex] |= bit;
+            used[2 * maxValue + blockIndex] |= bit;
+            candidates[cellIndex * LANES + lane] = bit;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the numbers of the single candidates of a unit from the other cells of the unit and reduces every cell
+     * that holds a hidden single to that number, in all lanes at once. Lanes with a contradiction are marked as failed.
+     */
+    private boolean propagate(int[] unit, int laneCount) {
+        Arrays.fill(once, 0, laneCount, 0);
+        Arrays.fill(twice, 0, laneCount, 0);
+        Arrays.fill(fixed, 0, laneCount, 0);
+        Arrays.fill(conflicts, 0, laneCount, 0);
+        for (int cellIndex : unit) {
+            int offset = cellIndex * LANES;
+            for (int lane = 0; lane < laneCount; lane++) {
+                int mask = candidates[offset + lane];
+                int single = mask & ~multiple(mask);
+                conflicts[lane] |= (fixed[lane] & single) | (((mask | -mask) >>> 31) ^ 1);
+                fixed[lane] |= single;
+                twice[lane] |= once[lane] & mask;
+                once[lane] |= mask;
+            }
+        }
+        for (int lane = 0; lane < laneCount; lane++) {
+            failed[lane] |= conflicts[lane] | (allNumbers & ~once[lane]);
+            hiddenSingles[lane] = once[lane] & ~twice[lane] & ~fixed[lane];
+        }
+
+        int changed = 0;
+        for (int cellIndex : unit) {
+            int offset = cellIndex * LANES;
+            for (int lane = 0; lane < laneCount; lane++) {
+                int mask = candidates[offset + lane];
+                int reduced = mask & ~(fixed[lane] & multiple(mask));
+                int hidden = reduced & hiddenSingles[lane];
+                failed[lane] |= hidden & (hidden - 1);
+                reduced = hidden | (reduced & ~((hidden | -hidden) >> 31));
+                changed |= reduced ^ mask;
+                candidates[offset + lane] = reduced;
+            }
+        }
+        return changed != 0;
+    }
+
+    /**
+     * Returns all bits set when the mask has more than one bit set, and no bit otherwise, without a branch.
+     */
+    private static int multiple(int mask) {
+        int rest = mask & (mask - 1);
+        return (rest | -rest) >> 31;
+    }
+
+    private SolveResult result(int lane) {
+        if (failed[lane] != 0) {
+            return SolveResult.of(SolveResult.Status.NO_SOLUTION);
+        }
+        boolean complete = true;
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            int mask = candidates[cellIndex * LANES + lane];
+            if ((mask & (mask - 1)) == 0) {
+                numbers[cellIndex] = Integer.numberOfTrailingZeros(mask);
+            } else {
+                numbers[cellIndex] = 0;
+                complete = false;
+            }
+        }
+        int count = complete ? 1 : bitboardSolver.countSolutions(size, numbers, 2);
+        if (count == 0) {
+            return SolveResult.of(SolveResult.Status.NO_SOLUTION);
+        }
+        if (count > 1) {
+            return SolveResult.of(SolveResult.Status.MULTIPLE_SOLUTIONS);
+        }
+        return SolveResult.solved(BitboardSolver.toBoardString(numbers));
+    }
+}
@@ -0,0 +1,281 @@
+package rootheart.codes.sudoku.solver;
+
+import rootheart.codes.sudoku.game.Board;
+import rootheart.codes.sudoku.game.BoardNotation;
+
+/**
+ * Solver engine that keeps the whole puzzle in primitive arrays: one number per cell and one mask of used numbers
+ * per row, column and block. The candidates of a cell are derived from the three masks, so the search does not
+ * allocate anything. The arrays are reused between solves, therefore an instance must not be shared between threads.
+ * <p>
+ * Before branching on the cell with the fewest candidates, every row, column and block is checked for a number that
+ * fits into only one cell (a hidden single) or into no cell at all. On 16x16 and 25x25 boards this cuts the search
+ * tree down by orders of magnitude.
+ */
+public class BitboardSolver implements SolverEngine {
+    /** Returned by {@link #countSolutions(int, int[], int, long)} when the search ran out of nodes. */
+    public static final int OUT_OF_NODES = -1;
+
+    private int size;
+    private int maxValue;
+    private int cellCount;
+    private int allNumbers;
+
+    private int[] rowOfCell;
+    private int[] columnOfCell;
+    private int[] blockOfCell;
+    private int[][] cellsOfUnit;
+
+    private int[] numbers;
+    private int[] rowMasks;
+    private int[] columnMasks;
+    private int[] blockMasks;
+    private int[] emptyCells;
+    private int emptyCellCount;
+
+    private int[] solution;
+    private int solutionCount;
+    private int solutionLimit;
+    private long nodeLimit;
+    private long nodes;
+
+    private int branchPosition;
+    private int branchCandidates;
+
+    @Override
+    public void solve(Board board) {
+        if (!board.hasEmptyCells()) {
+            return;
+        }
+        int count = countSolutions(board, 2);
+        if (count == 0) {
+            throw new NoSolutionException("found no solution");
+        }
+        if (count > 1) {
+            throw new MultipleSolutionsException("found multiple solutions");
+        }
+        board.set(toBoardString(solution));
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit) {
+        prepare(board.getSize());
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            numbers[cellIndex] = board.cell(cellIndex).getNumber();
+        }
+        return searchSolutions(limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Counts the solutions of a board given as numbers in row-major order, 0 for an empty cell. If there is at least
+     * one solution, the first one found is written back into the array.
+     */
+    public int countSolutions(int size, int[] boardNumbers, int limit) {
+        return countSolutions(size, boardNumbers, limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Counts the solutions like {@link #countSolutions(int, int[], int)}, but gives up after visiting the given number
+     * of nodes of the search tree and returns {@link #OUT_OF_NODES}. Some sparse 16x16 and 25x25 boards take far too
+     * long to search completely.
+     */
+    public int countSolutions(int size, int[] boardNumbers, int limit, long nodeLimit) {
+        prepare(size);
+        System.arraycopy(boardNumbers, 0, numbers, 0, cellCount);
+        int count = searchSolutions(limit, nodeLimit);
+        if (count > 0) {
+            System.arraycopy(solution, 0, boardNumbers, 0, cellCount);
+        }
+        return count;
+    }
+
+    private int searchSolutions(int limit, long nodeLimit) {
+        load();
+        solutionCount = 0;
+        solutionLimit = limit;
+        this.nodeLimit = nodeLimit;
+        nodes = 0;
+        search();
+        return nodes > nodeLimit ? OUT_OF_NODES : solutionCount;
+    }
+
+    private void load() {
+        emptyCellCount = 0;
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            int number = numbers[cellIndex];
+            if (number == 0) {
+                emptyCells[emptyCellCount++] = cellIndex;
+            } else {
+                int bit = 1 << number;
+                if (number < 0 || number > maxValue || (~candidates(cellIndex) & bit) != 0) {
+                    throw new BoardInvalidException();
+                }
+                place(cellIndex, bit);
+            }
+        }
+    }
+
+    private void prepare(int size) {
+        if (this.size != size) {
+            this.size = size;
+            maxValue = size * size;
+            cellCount = maxValue * maxValue;
+            allNumbers = ((1 << maxValue) - 1) << 1;
+            rowOfCell = new int[cellCount];
+            columnOfCell = new int[cellCount];
+            blockOfCell = new int[cellCount];
+            cellsOfUnit = new int[3 * maxValue][maxValue];
+            int[] cellCountOfUnit = new int[3 * maxValue];
+            for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+                rowOfCell[cellIndex] = cellIndex / maxValue;
+                columnOfCell[cellIndex] = cellIndex % maxValue;
+                blockOfCell[cellIndex] = (rowOfCell[cellIndex] / size) * size + columnOfCell[cellIndex] / size;
+                int[] units = {rowOfCell[cellIndex], maxValue + columnOfCell[cellIndex], 2 * maxValue + blockOfCell[cellIndex]};
+                for (int unit : units) {
+                    cellsOfUnit[unit][cellCountOfUnit[unit]++] = cellIndex;
+                }
+            }
+            numbers = new int[cellCount];
+            rowMasks = new int[maxValue];
+            columnMasks = new int[maxValue];
+            blockMasks = new int[maxValue];
+            emptyCells = new int[cellCount];
+            solution = new int[cellCount];
+        } else {
+            for (int i = 0; i < maxValue; i++) {
+                rowMasks[i] = 0;
+                columnMasks[i] = 0;
+                blockMasks[i] = 0;
+            }
+        }
+    }
+
+    private void search() {
+        if (++nodes > nodeLimit) {
+            return;
+        }
+        if (emptyCellCount == 0) {
+            if (++solutionCount == 1) {
+                System.arraycopy(numbers, 0, solution, 0, cellCount);
+            }
+            return;
+        }
+
+        if (!chooseBranch()) {
+            return;
+        }
+        int bestPosition = branchPosition;
+        int bestCandidates = branchCandidates;
+
+        int cellIndex = emptyCells[bestPosition];
+        emptyCells[bestPosition] = emptyCells[--emptyCellCount];
+        emptyCells[emptyCellCount] = cellIndex;
+        for (int remaining = bestCandidates;
+             remaining != 0 && solutionCount < solutionLimit && nodes <= nodeLimit;
+             remaining &= remaining - 1) {
+            int bit = remaining & -remaining;
+            place(cellIndex, bit);
+            search();
+            remove(cellIndex, bit);
+        }
+        emptyCellCount++;
+    }
+
+    /**
+     * Chooses the empty cell and the numbers to branch on, or returns false if some cell or some unit cannot be
+     * filled anymore.
+     */
+    private boolean chooseBranch() {
+        // branch on the cell with the fewest candidates
+        int bestCount = Integer.MAX_VALUE;
+        for (int position = 0; position < emptyCellCount; position++) {
+            int candidates = candidates(emptyCells[position]);
+            int count = Integer.bitCount(candidates);
+            if (count < bestCount) {
+                if (count == 0) {
+                    return false;
+                }
+                branchPosition = position;
+                branchCandidates = candidates;
+                bestCount = count;
+                if (count == 1) {
+                    return true;
+                }
+            }
+        }
+
+        // unless a number fits into only one cell of a unit
+        for (int unit = 0; unit < cellsOfUnit.length; unit++) {
+            int once = 0;
+            int twice = 0;
+            for (int cellIndex : cellsOfUnit[unit]) {
+                if (numbers[cellIndex] == 0) {
+                    int candidates = candidates(cellIndex);
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+            }
+            if ((allNumbers & ~unitMask(unit) & ~once) != 0) {
+                return false;
+            }
+            int hiddenSingles = once & ~twice;
+            if (hiddenSingles != 0) {
+                int bit = hiddenSingles & -hiddenSingles;
+                for (int cellIndex : cellsOfUnit[unit]) {
+                    if (numbers[cellIndex] == 0 && (candidates(cellIndex) & bit) != 0) {
+                        branchPosition = positionOf(cellIndex);
+                        branchCandidates = bit;
+                        return true;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private int unitMask(int unit) {
+        if (unit < maxValue) {
+            return rowMasks[unit];
+        }
+        if (unit < 2 * maxValue) {
+            return columnMasks[unit - maxValue];
+        }
+        return blockMasks[unit - 2 * maxValue];
+    }
+
+    private int positionOf(int cellIndex) {
+        int position = 0;
+        while (emptyCells[position] != cellIndex) {
+            position++;
+        }
+        return position;
+    }
+
+    private int candidates(int cellIndex) {
+        return allNumbers & ~(rowMasks[rowOfCell[cellIndex]]
+                | columnMasks[columnOfCell[cellIndex]]
+                | blockMasks[blockOfCell[cellIndex]]);
+    }
+
+    private void place(int cellIndex, int bit) {
+        numbers[cellIndex] = Integer.numberOfTrailingZeros(bit);
+        rowMasks[rowOfCell[cellIndex]] |= bit;
+        columnMasks[columnOfCell[cellIndex]] |= bit;
+        blockMasks[blockOfCell[cellIndex]] |= bit;
+    }
+
+    private void remove(int cellIndex, int bit) {
+        numbers[cellIndex] = 0;
+        rowMasks[rowOfCell[cellIndex]] &= ~bit;
+        columnMasks[columnOfCell[cellIndex]] &= ~bit;
+        blockMasks[blockOfCell[cellIndex]] &= ~bit;
+    }
+
+    static String toBoardString(int[] numbers) {
+        char[] chars = new char[numbers.length];
+        for (int cellIndex = 0; cellIndex < numbers.length; cellIndex++) {
+            chars[cellIndex] = BoardNotation.characterOf(numbers[cellIndex]);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,24 @@
+package rootheart.codes.sudoku.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("rootheart.codes.sudoku.Branch")
+@Label("Branch")
+@Description("Trying one number in an empty cell during the brute force search, including the whole subtree")
+@Category("Sudoku")
+class BranchEvent extends Event {
+    @Label("Depth")
+    int depth;
+    @Label("Cell Index")
+    int cellIndex;
+    @Label("Number")
+    int number;
+    @Label("Empty Cells")
+    int emptyCells;
+    @Label("Dead End")
+    boolean deadEnd;
+}
@@ -0,0 +1,104 @@
+package rootheart.codes.sudoku.solver;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import rootheart.codes.sudoku.game.Board;
+
+/**
+ * Answers boards that were solved before, or that are equivalent to a board that was solved before, from a bounded
+ * cache instead of solving them again. The results are cached under the {@link CanonicalForm canonical board}, so a
+ * relabelled, rearranged or transposed board finds the result of the original board, and the solution is transformed
+ * back to the board that was asked for. Boards without a solution, with multiple solutions or invalid boards throw the
+ * same exceptions as the solver does. The cache evicts with Caffeine's W-TinyLFU policy.
+ * <p>
+ * Canonicalizing costs about as much as solving an easy board, so the result is also cached under the board as it was
+ * asked for, and a board that is asked for again is answered without canonicalizing it. Both kinds of keys map a
+ * board to its own result, therefore they share one cache.
+ */
+public class CachingSolver implements SolverEngine {
+    private final SolverEngine delegate;
+    private final Cache<String, SolveResult> cache;
+    private final ThreadLocal<Canonicalizer> canonicalizers = ThreadLocal.withInitial(Canonicalizer::new);
+
+    public CachingSolver(SolverEngine delegate, long maximumSize) {
+        this.delegate = delegate;
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void solve(Board board) {
+        if (!board.hasEmptyCells()) {
+            delegate.solve(board);
+            return;
+        }
+        String boardString = board.getBoardString();
+        SolveResult result = cache.getIfPresent(boardString);
+        if (result != null) {
+            apply(board, result);
+            return;
+        }
+        CanonicalForm canonicalForm = canonicalizers.get().canonicalize(boardString);
+        result = cache.getIfPresent(canonicalForm.getBoard());
+        if (result == null) {
+            solveAndCache(board, canonicalForm);
+            return;
+        }
+        if (result.getStatus() == SolveResult.Status.SOLVED) {
+            result = SolveResult.solved(canonicalForm.fromCanonical(result.getSolution()));
+        }
+        cache.put(boardString, result);
+        apply(board, result);
+    }
+
+    private void apply(Board board, SolveResult result) {
+        switch (result.getStatus()) {
+            case SOLVED:
+                board.set(result.getSolution());
+                break;
+            case NO_SOLUTION:
+                throw new NoSolutionException("found no solution");
+            case MULTIPLE_SOLUTIONS:
+                throw new MultipleSolutionsException("found multiple solutions");
+            case INVALID:
+            default:
+                throw new BoardInvalidException();
+        }
+    }
+
+    private void solveAndCache(Board board, CanonicalForm canonicalForm) {
+        String boardString = board.getBoardString();
+        try {
+            delegate.solve(board);
+            cache.put(boardString, SolveResult.solved(board.getBoardString()));
+            cache.put(canonicalForm.getBoard(), SolveResult.solved(canonicalForm.toCanonical(board.getBoardString())));
+        } catch (NoSolutionException e) {
+            cacheFailure(boardString, canonicalForm, SolveResult.Status.NO_SOLUTION);
+            throw e;
+        } catch (MultipleSolutionsException e) {
+            cacheFailure(boardString, canonicalForm, SolveResult.Status.MULTIPLE_SOLUTIONS);
+            throw e;
+        } catch (BoardInvalidException e) {
+            cacheFailure(boardString, canonicalForm, SolveResult.Status.INVALID);
+            throw e;
+        }
+    }
+
+    private void cacheFailure(String boardString, CanonicalForm canonicalForm, SolveResult.Status status) {
+        SolveResult result = SolveResult.of(status);
+        cache.put(boardString, result);
+        cache.put(canonicalForm.getBoard(), result);
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit) {
+        return delegate.countSolutions(board, limit);
+    }
+
+    public CacheStats getCacheStatistics() {
+        return cache.stats();
+    }
+}
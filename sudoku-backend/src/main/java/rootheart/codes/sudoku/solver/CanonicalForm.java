@@ -0,0 +1,54 @@
+package rootheart.codes.sudoku.solver;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import rootheart.codes.sudoku.game.BoardNotation;
+
+/**
+ * The canonical board of a board and the transformation that leads to it. Cell (i, j) of the canonical board is the
+ * relabelled number of cell (rows[i], columns[j]) of the original board, or of cell (columns[j], rows[i]) if the
+ * board is transposed. Any board string of the same size, e.g. the solution, can be mapped in both directions.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class CanonicalForm {
+    @Getter
+    private final String board;
+    private final boolean transposed;
+    private final int[] rows;
+    private final int[] columns;
+    /** The canonical number of each original number, 0 stays 0. */
+    private final int[] labels;
+
+    public String toCanonical(String original) {
+        int maxValue = rows.length;
+        char[] chars = new char[maxValue * maxValue];
+        for (int i = 0; i < maxValue; i++) {
+            for (int j = 0; j < maxValue; j++) {
+                int number = BoardNotation.numberOf(original.charAt(originalIndex(i, j)));
+                chars[i * maxValue + j] = BoardNotation.characterOf(labels[number]);
+            }
+        }
+        return new String(chars);
+    }
+
+    public String fromCanonical(String canonical) {
+        int maxValue = rows.length;
+        int[] numbers = new int[labels.length];
+        for (int number = 0; number < labels.length; number++) {
+            numbers[labels[number]] = number;
+        }
+        char[] chars = new char[maxValue * maxValue];
+        for (int i = 0; i < maxValue; i++) {
+            for (int j = 0; j < maxValue; j++) {
+                int label = BoardNotation.numberOf(canonical.charAt(i * maxValue + j));
+                chars[originalIndex(i, j)] = BoardNotation.characterOf(numbers[label]);
+            }
+        }
+        return new String(chars);
+    }
+
+    private int originalIndex(int i, int j) {
+        return transposed ? columns[j] * rows.length + rows[i] : rows[i] * rows.length + columns[j];
+    }
+}
@@ -0,0 +1,443 @@
+package rootheart.codes.sudoku.solver;
+
+import rootheart.codes.sudoku.game.BoardNotation;
+
+import java.util.Arrays;
+
+/**
+ * Maps a board to its canonical form: the smallest board string that can be reached by relabelling the numbers,
+ * reordering the rows within a band and the columns within a stack, reordering the bands and stacks, and
+ * transposing. Boards that are equivalent under these transformations have the same canonical board. The numbers are
+ * relabelled in the order in which they first occur, so only the arrangements of rows and columns are searched.
+ * <p>
+ * The rows are searched one by one with branch and bound, rows that are larger than the same row of the best board so
+ * far are cut off. The orders of the columns are not enumerated: columns and stacks that were empty in all rows so far
+ * stay tied, and each row sorts the tied columns so that the row becomes as small as possible. The search only
+ * branches where the order of the columns decides which number gets which label.
+ * <p>
+ * Boards larger than 9x9 have too many arrangements and are only relabelled, as are boards whose search visits more
+ * than {@value #MAX_NODES} rows. These boards still get the same canonical form every time, it is just not shared
+ * with their equivalent boards.
+ * <p>
+ * The buffers are reused between boards, therefore an instance must not be shared between threads.
+ */
+public class Canonicalizer {
+    private static final int MAX_NODES = 20_000;
+    private static final int MAX_ARRANGED_SIZE = 3;
+
+    private int size;
+    private int maxValue;
+    private int newNumber;
+
+    private int[] numbers;
+    private int[] grid;
+    private int[] best;
+    private int[] rows;
+    private int[] labels;
+    private int nextLabel;
+    private boolean transposed;
+    private int nodes;
+
+    /** The column at each position. */
+    private int[] columns;
+    /** Whether the column at a position may still be swapped with the column at the next position. */
+    private boolean[] tiedColumns;
+    /** Whether the stack at a position may still be swapped with the stack at the next position. */
+    private boolean[] tiedStacks;
+    private int[][] patterns;
+    private int[][] savedColumns;
+    private boolean[][] savedTiedColumns;
+    private boolean[][] savedTiedStacks;
+    private int savedCount;
+
+    private boolean bestTransposed;
+    private int[] bestRows;
+    private int[] bestColumns;
+    private int[] bestLabels;
+
+    public CanonicalForm canonicalize(String board) {
+        prepare(BoardNotation.sizeOf(board.length()));
+        for (int cellIndex = 0; cellIndex < numbers.length; cellIndex++) {
+            numbers[cellIndex] = BoardNotation.numberOf(board.charAt(cellIndex));
+            if (numbers[cellIndex] < 0 || numbers[cellIndex] > maxValue) {
+                throw new IllegalArgumentException("invalid character at " + cellIndex + " of " + board);
+            }
+        }
+        if (size > MAX_ARRANGED_SIZE || !searchArrangements()) {
+            relabelOnly();
+        }
+        completeLabels(bestLabels);
+        return new CanonicalForm(BitboardSolver.toBoardString(best), bestTransposed, bestRows.clone(),
+                bestColumns.clone(), bestLabels.clone());
+    }
+
+    private boolean searchArrangements() {
+        best[0] = Integer.MAX_VALUE;
+        nodes = 0;
+        for (int transpose = 0; transpose < 2; transpose++) {
+            transposed = transpose == 1;
+            for (int r = 0; r < maxValue; r++) {
+                for (int c = 0; c < maxValue; c++) {
+                    grid[r * maxValue + c] = transposed ? numbers[c * maxValue + r] : numbers[r * maxValue + c];
+                }
+            }
+            for (int position = 0; position < maxValue; position++) {
+                columns[position] = position;
+                tiedColumns[position] = position % size != size - 1;
+            }
+            for (int stack = 0; stack < size; stack++) {
+                tiedStacks[stack] = stack != size - 1;
+            }
+            Arrays.fill(labels, 0);
+            nextLabel = 0;
+            savedCount = 0;
+            if (!searchRows(0, 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tries every row that may come next in the order of the bands and arranges the columns for it.
+     */
+    private boolean searchRows(int depth, int usedRows) {
+        if (depth == maxValue) {
+            bestTransposed = transposed;
+            System.arraycopy(rows, 0, bestRows, 0, maxValue);
+            System.arraycopy(columns, 0, bestColumns, 0, maxValue);
+            System.arraycopy(labels, 0, bestLabels, 0, labels.length);
+            return true;
+        }
+        if (++nodes > MAX_NODES) {
+            return false;
+        }
+        int band = depth % size == 0 ? -1 : rows[depth - 1] / size;
+        int saved = save();
+        for (int r = 0; r < maxValue; r++) {
+            if ((usedRows & 1 << r) != 0 || (band >= 0 && r / size != band)
+                    || (band < 0 && (usedRows & 1 << (r / size * size)) != 0)) {
+                continue;
+            }
+            rows[depth] = r;
+            restore(saved);
+            if (!arrangeStacks(depth, usedRows | 1 << r, 0, 0)) {
+                return false;
+            }
+        }
+        restore(saved);
+        savedCount = saved;
+        return true;
+    }
+
+    /**
+     * Moves the tied stack with the smallest part of the current row to the given stack position. Stacks whose parts
+     * are empty stay tied. If several stacks have the same smallest part with new numbers, each of them is tried.
+     * <p>
+     * The comparison of the arranged part of the row with the best board is passed along, so that an arrangement is
+     * given up as soon as the row gets larger than the row of the best board.
+     */
+    private boolean arrangeStacks(int depth, int usedRows, int stack, int comparison) {
+        if (stack == size) {
+            return compareRow(depth, usedRows, comparison);
+        }
+        int last = stack;
+        while (tiedStacks[last]) {
+            last++;
+        }
+        if (last == stack) {
+            return arrangeColumns(depth, usedRows, stack, stack * size, comparison);
+        }
+
+        for (int other = stack; other <= last; other++) {
+            pattern(depth, other);
+        }
+        int smallest = stack;
+        int candidates = 1 << stack;
+        for (int other = stack + 1; other <= last; other++) {
+            int order = comparePatterns(patterns[other], patterns[smallest]);
+            if (order < 0) {
+                smallest = other;
+                candidates = 0;
+            }
+            if (order <= 0) {
+                candidates |= 1 << other;
+            }
+        }
+        if (Integer.bitCount(candidates) > 1 && isEmpty(patterns[smallest])) {
+            // these stacks stay tied, they are moved in front of the others
+            int position = stack;
+            for (int other = stack; other <= last; other++) {
+                if ((candidates & 1 << other) != 0) {
+                    swapStacks(position++, other);
+                }
+            }
+            tiedStacks[position - 1] = false;
+            for (int i = stack * size; i < position * size; i++) {
+                comparison = compare(depth, i, 0, comparison);
+            }
+            return comparison > 0 || arrangeStacks(depth, usedRows, position, comparison);
+        }
+
+        int saved = save();
+        for (int other = stack; other <= last; other++) {
+            if ((candidates & 1 << other) != 0) {
+                restore(saved);
+                swapStacks(stack, other);
+                tiedStacks[stack] = false;
+                if (!arrangeColumns(depth, usedRows, stack, stack * size, comparePrefix(depth, stack * size))) {
+                    return false;
+                }
+            }
+        }
+        restore(saved);
+        savedCount = saved;
+        return true;
+    }
+
+    /**
+     * Sorts the tied columns of a stack so that the current row is as small as possible: empty cells first, they stay
+     * tied, then the numbers that already have a label, then the new numbers. Each order of the new numbers is tried,
+     * because it decides their labels.
+     */
+    private boolean arrangeColumns(int depth, int usedRows, int stack, int position, int comparison) {
+        if (position == (stack + 1) * size) {
+            return arrangeStacks(depth, usedRows, stack + 1, comparison);
+        }
+        int last = position;
+        while (tiedColumns[last]) {
+            last++;
+        }
+        sortColumns(depth, position, last);
+        int key = key(depth, columns[position]);
+        if (key == 0) {
+            int zeros = position;
+            comparison = compare(depth, position, 0, comparison);
+            while (zeros < last && key(depth, columns[zeros + 1]) == 0) {
+                zeros++;
+                comparison = compare(depth, zeros, 0, comparison);
+            }
+            tiedColumns[zeros] = false;
+            return comparison > 0 || arrangeColumns(depth, usedRows, stack, zeros + 1, comparison);
+        }
+        if (key != newNumber || position == last) {
+            tiedColumns[position] = false;
+            return labelAndArrange(depth, usedRows, stack, position, comparison);
+        }
+
+        int saved = save();
+        for (int other = position; other <= last; other++) {
+            restore(saved);
+            swapColumns(position, other);
+            tiedColumns[position] = false;
+            if (!labelAndArrange(depth, usedRows, stack, position, comparePrefix(depth, position))) {
+                return false;
+            }
+        }
+        restore(saved);
+        savedCount = saved;
+        return true;
+    }
+
+    private boolean labelAndArrange(int depth, int usedRows, int stack, int position, int comparison) {
+        int number = grid[rows[depth] * maxValue + columns[position]];
+        boolean newLabel = labels[number] == 0;
+        if (newLabel) {
+            labels[number] = ++nextLabel;
+        }
+        comparison = compare(depth, position, labels[number], comparison);
+        boolean result = comparison > 0 || arrangeColumns(depth, usedRows, stack, position + 1, comparison);
+        if (newLabel) {
+            labels[number] = 0;
+            nextLabel--;
+        }
+        return result;
+    }
+
+    /**
+     * Continues with the next row if the arranged row is not larger than the same row of the best board so far. A
+     * smaller row replaces it and invalidates the rows below.
+     */
+    private boolean compareRow(int depth, int usedRows, int comparison) {
+        if (comparison < 0) {
+            int offset = depth * maxValue;
+            for (int position = 0; position < maxValue; position++) {
+                best[offset + position] = labels[grid[rows[depth] * maxValue + columns[position]]];
+            }
+            if (depth + 1 < maxValue) {
+                best[offset + maxValue] = Integer.MAX_VALUE;
+            }
+        }
+        return searchRows(depth + 1, usedRows);
+    }
+
+    /**
+     * Compares the arranged positions of the row with the best board again. A branch can replace the row of the best
+     * board, so the comparison from before the branch is not valid for the next branch.
+     */
+    private int comparePrefix(int depth, int length) {
+        int comparison = 0;
+        for (int position = 0; position < length && comparison == 0; position++) {
+            comparison = compare(depth, position, labels[grid[rows[depth] * maxValue + columns[position]]], 0);
+        }
+        return comparison;
+    }
+
+    /**
+     * Returns the comparison of the row with the best board after the value at the given position, -1 once the row is
+     * smaller and 1 once it is larger.
+     */
+    private int compare(int depth, int position, int value, int comparison) {
+        if (comparison != 0) {
+            return comparison;
+        }
+        int bestValue = best[depth * maxValue + position];
+        return value == bestValue ? 0 : value < bestValue ? -1 : 1;
+    }
+
+    /**
+     * Returns the label of the number of the current row in a column, 0 for an empty cell and a value larger than
+     * all labels for a number without label.
+     */
+    private int key(int depth, int column) {
+        int number = grid[rows[depth] * maxValue + column];
+        if (number == 0) {
+            return 0;
+        }
+        return labels[number] == 0 ? newNumber : labels[number];
+    }
+
+    /**
+     * Computes the keys of the current row in a stack, sorted within the tied columns.
+     */
+    private void pattern(int depth, int stack) {
+        int[] pattern = patterns[stack];
+        int first = 0;
+        for (int i = 0; i < size; i++) {
+            pattern[i] = key(depth, columns[stack * size + i]);
+            if (!tiedColumns[stack * size + i]) {
+                Arrays.sort(pattern, first, i + 1);
+                first = i + 1;
+            }
+        }
+    }
+
+    private static int comparePatterns(int[] pattern, int[] other) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (pattern[i] != other[i]) {
+                return pattern[i] < other[i] ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isEmpty(int[] pattern) {
+        for (int key : pattern) {
+            if (key != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void sortColumns(int depth, int first, int last) {
+        for (int i = first + 1; i <= last; i++) {
+            int column = columns[i];
+            int key = key(depth, column);
+            int j = i - 1;
+            while (j >= first && key(depth, columns[j]) > key) {
+                columns[j + 1] = columns[j];
+                j--;
+            }
+            columns[j + 1] = column;
+        }
+    }
+
+    private void swapColumns(int position, int other) {
+        int column = columns[position];
+        columns[position] = columns[other];
+        columns[other] = column;
+    }
+
+    /**
+     * Swaps the columns of two stacks. Tied stacks have the same tied columns, so the ties stay as they are.
+     */
+    private void swapStacks(int stack, int other) {
+        for (int i = 0; i < size; i++) {
+            swapColumns(stack * size + i, other * size + i);
+        }
+    }
+
+    private int save() {
+        System.arraycopy(columns, 0, savedColumns[savedCount], 0, maxValue);
+        System.arraycopy(tiedColumns, 0, savedTiedColumns[savedCount], 0, maxValue);
+        System.arraycopy(tiedStacks, 0, savedTiedStacks[savedCount], 0, size);
+        return savedCount++;
+    }
+
+    private void restore(int saved) {
+        System.arraycopy(savedColumns[saved], 0, columns, 0, maxValue);
+        System.arraycopy(savedTiedColumns[saved], 0, tiedColumns, 0, maxValue);
+        System.arraycopy(savedTiedStacks[saved], 0, tiedStacks, 0, size);
+        savedCount = saved + 1;
+    }
+
+    private void relabelOnly() {
+        bestTransposed = false;
+        for (int i = 0; i < maxValue; i++) {
+            bestRows[i] = i;
+            bestColumns[i] = i;
+        }
+        Arrays.fill(bestLabels, 0);
+        int label = 0;
+        for (int cellIndex = 0; cellIndex < numbers.length; cellIndex++) {
+            int number = numbers[cellIndex];
+            if (number != 0 && bestLabels[number] == 0) {
+                bestLabels[number] = ++label;
+            }
+            best[cellIndex] = bestLabels[number];
+        }
+    }
+
+    /**
+     * Gives the numbers that do not occur on the board the remaining labels, so that the labels can be reverted.
+     */
+    private void completeLabels(int[] labels) {
+        int label = 0;
+        for (int number = 1; number <= maxValue; number++) {
+            label = Math.max(label, labels[number]);
+        }
+        for (int number = 1; number <= maxValue; number++) {
+            if (labels[number] == 0) {
+                labels[number] = ++label;
+            }
+        }
+    }
+
+    private void prepare(int size) {
+        if (this.size == size) {
+            return;
+        }
+        this.size = size;
+        maxValue = size * size;
+        newNumber = maxValue + 1;
+        int cellCount = maxValue * maxValue;
+        numbers = new int[cellCount];
+        grid = new int[cellCount];
+        best = new int[cellCount];
+        rows = new int[maxValue];
+        labels = new int[maxValue + 1];
+        columns = new int[maxValue];
+        tiedColumns = new boolean[maxValue];
+        tiedStacks = new boolean[size];
+        patterns = new int[size][size];
+        // every row saves once, and once more for each stack and column position where it branches
+        int maxSaved = maxValue * (1 + size + maxValue) + 1;
+        savedColumns = new int[maxSaved][maxValue];
+        savedTiedColumns = new boolean[maxSaved][maxValue];
+        savedTiedStacks = new boolean[maxSaved][size];
+        bestRows = new int[maxValue];
+        bestColumns = new int[maxValue];
+        bestLabels = new int[maxValue + 1];
+    }
+}
@@ -0,0 +1,246 @@
+package rootheart.codes.sudoku.solver;
+
+import rootheart.codes.sudoku.game.Board;
+
+/**
+ * Exact cover solver (Knuth's Algorithm X with dancing links). Every cell, every number in a row, every number in a
+ * column and every number in a block is a constraint column; every possible number in every cell is a matrix row
+ * covering four of those columns. The links are kept in int arrays that are built once per board size and reused,
+ * so an instance must not be shared between threads.
+ */
+public class DancingLinksSolver implements SolverEngine {
+    private static final int ROOT = 0;
+
+    private int size;
+    private int maxValue;
+    private int cellCount;
+
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    private int[] columnOfNode;
+    private int[] matrixRowOfNode;
+    private int[] columnSizes;
+    private int[] firstNodeOfMatrixRow;
+
+    private int[] numbers;
+    private int[] givenMatrixRows;
+    private int[] chosenMatrixRows;
+    private int[] solution;
+    private int solutionCount;
+    private int solutionLimit;
+
+    @Override
+    public void solve(Board board) {
+        if (!board.hasEmptyCells()) {
+            return;
+        }
+        int count = countSolutions(board, 2);
+        if (count == 0) {
+            throw new NoSolutionException("found no solution");
+        }
+        if (count > 1) {
+            throw new MultipleSolutionsException("found multiple solutions");
+        }
+        board.set(BitboardSolver.toBoardString(solution));
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit) {
+        prepare(board.getSize());
+        int givenCount = coverGivens(board);
+        solutionCount = 0;
+        solutionLimit = limit;
+        try {
+            search(0);
+        } finally {
+            uncoverGivens(givenCount);
+        }
+        return solutionCount;
+    }
+
+    private int coverGivens(Board board) {
+        int givenCount = 0;
+        for (int rowIndex = 0; rowIndex < maxValue; rowIndex++) {
+            for (int columnIndex = 0; columnIndex < maxValue; columnIndex++) {
+                int cellIndex = rowIndex * maxValue + columnIndex;
+                int number = board.cell(columnIndex, rowIndex).getNumber();
+                numbers[cellIndex] = number;
+                if (number != 0) {
+                    int matrixRow = cellIndex * maxValue + number - 1;
+                    if (!isSelectable(matrixRow)) {
+                        uncoverGivens(givenCount);
+                        throw new BoardInvalidException();
+                    }
+                    selectMatrixRow(matrixRow);
+                    givenMatrixRows[givenCount++] = matrixRow;
+                }
+            }
+        }
+        return givenCount;
+    }
+
+    private void uncoverGivens(int givenCount) {
+        for (int i = givenCount - 1; i >= 0; i--) {
+            deselectMatrixRow(givenMatrixRows[i]);
+        }
+    }
+
+    private boolean isSelectable(int matrixRow) {
+        int first = firstNodeOfMatrixRow[matrixRow];
+        int node = first;
+        do {
+            int column = columnOfNode[node];
+            if (left[right[column]] != column) {
+                return false;
+            }
+            node = right[node];
+        } while (node != first);
+        return true;
+    }
+
+    private void search(int depth) {
+        if (right[ROOT] == ROOT) {
+            if (++solutionCount == 1) {
+                System.arraycopy(numbers, 0, solution, 0, cellCount);
+                for (int i = 0; i < depth; i++) {
+                    int matrixRow = chosenMatrixRows[i];
+                    solution[matrixRow / maxValue] = matrixRow % maxValue + 1;
+                }
+            }
+            return;
+        }
+
+        int column = right[ROOT];
+        for (int candidate = right[column]; candidate != ROOT; candidate = right[candidate]) {
+            if (columnSizes[candidate] < columnSizes[column]) {
+                column = candidate;
+            }
+        }
+        if (columnSizes[column] == 0) {
+            return;
+        }
+
+        cover(column);
+        for (int node = down[column]; node != column && solutionCount < solutionLimit; node = down[node]) {
+            chosenMatrixRows[depth] = matrixRowOfNode[node];
+            for (int other = right[node]; other != node; other = right[other]) {
+                cover(columnOfNode[other]);
+            }
+            search(depth + 1);
+            for (int other = left[node]; other != node; other = left[other]) {
+                uncover(columnOfNode[other]);
+            }
+        }
+        uncover(column);
+    }
+
+    private void selectMatrixRow(int matrixRow) {
+        int first = firstNodeOfMatrixRow[matrixRow];
+        int node = first;
+        do {
+            cover(columnOfNode[node]);
+            node = right[node];
+        } while (node != first);
+    }
+
+    private void deselectMatrixRow(int matrixRow) {
+        int first = firstNodeOfMatrixRow[matrixRow];
+        int node = left[first];
+        do {
+            uncover(columnOfNode[node]);
+            node = left[node];
+        } while (node != left[first]);
+    }
+
+    private void cover(int column) {
+        right[left[column]] = right[column];
+        left[right[column]] = left[column];
+        for (int row = down[column]; row != column; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                up[down[node]] = up[node];
+                down[up[node]] = down[node];
+                columnSizes[columnOfNode[node]]--;
+            }
+        }
+    }
+
+    private void uncover(int column) {
+        for (int row = up[column]; row != column; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                columnSizes[columnOfNode[node]]++;
+                up[down[node]] = node;
+                down[up[node]] = node;
+            }
+        }
+        right[left[column]] = column;
+        left[right[column]] = column;
+    }
+
+    private void prepare(int size) {
+        if (this.size == size) {
+            return;
+        }
+        this.size = size;
+        maxValue = size * size;
+        cellCount = maxValue * maxValue;
+        int columnCount = 4 * cellCount;
+        int matrixRowCount = cellCount * maxValue;
+        int nodeCount = 1 + columnCount + 4 * matrixRowCount;
+
+        left = new int[nodeCount];
+        right = new int[nodeCount];
+        up = new int[nodeCount];
+        down = new int[nodeCount];
+        columnOfNode = new int[nodeCount];
+        matrixRowOfNode = new int[nodeCount];
+        columnSizes = new int[columnCount + 1];
+        firstNodeOfMatrixRow = new int[matrixRowCount];
+        numbers = new int[cellCount];
+        givenMatrixRows = new int[cellCount];
+        chosenMatrixRows = new int[cellCount];
+        solution = new int[cellCount];
+
+        for (int column = 0; column <= columnCount; column++) {
+            left[column] = column == 0 ? columnCount : column - 1;
+            right[column] = column == columnCount ? 0 : column + 1;
+            up[column] = column;
+            down[column] = column;
+            columnOfNode[column] = column;
+        }
+
+        int node = columnCount + 1;
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            int rowIndex = cellIndex / maxValue;
+            int columnIndex = cellIndex % maxValue;
+            int blockIndex = (rowIndex / size) * size + columnIndex / size;
+            for (int number = 0; number < maxValue; number++) {
+                int matrixRow = cellIndex * maxValue + number;
+                int first = node;
+                firstNodeOfMatrixRow[matrixRow] = first;
+                node = appendNode(node, first, matrixRow, 1 + cellIndex);
+                node = appendNode(node, first, matrixRow, 1 + cellCount + rowIndex * maxValue + number);
+                node = appendNode(node, first, matrixRow, 1 + 2 * cellCount + columnIndex * maxValue + number);
+                node = appendNode(node, first, matrixRow, 1 + 3 * cellCount + blockIndex * maxValue + number);
+            }
+        }
+    }
+
+    private int appendNode(int node, int first, int matrixRow, int column) {
+        columnOfNode[node] = column;
+        matrixRowOfNode[node] = matrixRow;
+        columnSizes[column]++;
+
+        up[node] = up[column];
+        down[node] = column;
+        down[up[column]] = node;
+        up[column] = node;
+
+        left[node] = node == first ? node : node - 1;
+        right[node] = first;
+        right[left[node]] = node;
+        left[first] = node;
+        return node + 1;
+    }
+}
@@ -5,6 +5,9 @@ import lombok.NoArgsConstructor;
 import java.util.Objects;
 import java.util.function.IntConsumer;
 
+/**
+ * A set of the numbers 0 to 31, one bit per number, which covers the candidates of boards up to 25x25.
+ */
 @NoArgsConstructor
 public class NumberSet implements Cloneable {
     private int binaryEncodedNumbers;
@@ -39,13 +42,7 @@ public class NumberSet implements Cloneable {
         if (binaryEncodedNumbers == 0) {
             return 0;
         }
-
-        for (int numberToCheck = 1; numberToCheck < 32; numberToCheck++) {
-            if (contains(numberToCheck)) {
-                return numberToCheck;
-            }
-        }
-        return 0;
+        return Integer.numberOfTrailingZeros(binaryEncodedNumbers);
     }
 
     public void remove(int number) {
@@ -53,7 +50,11 @@ public class NumberSet implements Cloneable {
     }
 
     public boolean contains(int number) {
-        return (binaryEncodedNumbers & 1 << number) > 0;
+        return (binaryEncodedNumbers & 1 << number) != 0;
+    }
+
+    public boolean containsAny(NumberSet other) {
+        return (binaryEncodedNumbers & other.binaryEncodedNumbers) != 0;
     }
 
     public boolean containsAll(int... numbers) {
@@ -74,24 +75,12 @@ public class NumberSet implements Cloneable {
     }
 
     public int getCount() {
-        int count = 0;
-        int n = binaryEncodedNumbers;
-        while (n > 0) {
-            count += n & 1;
-            n >>= 1;
-        }
-        return count;
+        return Integer.bitCount(binaryEncodedNumbers);
     }
 
     public void forEach(IntConsumer consumer) {
-        if (binaryEncodedNumbers == 0) {
-            return;
-        }
-
-        for (int number = 0; number < 32; number++) {
-            if (contains(number)) {
-                consumer.accept(number);
-            }
+        for (int remaining = binaryEncodedNumbers; remaining != 0; remaining &= remaining - 1) {
+            consumer.accept(Integer.numberOfTrailingZeros(remaining));
         }
     }
 
@@ -117,6 +106,14 @@ public class NumberSet implements Cloneable {
         return null;
     }
 
+    public int getBinaryEncodedNumbers() {
+        return binaryEncodedNumbers;
+    }
+
+    public void setBinaryEncodedNumbers(int binaryEncodedNumbers) {
+        this.binaryEncodedNumbers = binaryEncodedNumbers;
+    }
+
     public void clear() {
         binaryEncodedNumbers = 0;
     }
@@ -0,0 +1,20 @@
+package rootheart.codes.sudoku.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("rootheart.codes.sudoku.Propagation")
+@Label("Propagation Round")
+@Description("One round of eliminating candidates and setting single candidates")
+@Category("Sudoku")
+class PropagationEvent extends Event {
+    @Label("Depth")
+    int depth;
+    @Label("Empty Cells Before")
+    int emptyCellsBefore;
+    @Label("Empty Cells After")
+    int emptyCellsAfter;
+}
@@ -0,0 +1,29 @@
+package rootheart.codes.sudoku.solver;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class SolveResult {
+    public enum Status {
+        SOLVED,
+        NO_SOLUTION,
+        MULTIPLE_SOLUTIONS,
+        INVALID
+    }
+
+    private final Status status;
+    /**
+     * The board string of the only solution, or {@code null} if the board was not solved.
+     */
+    private final String solution;
+
+    public static SolveResult solved(String solution) {
+        return new SolveResult(Status.SOLVED, solution);
+    }
+
+    public static SolveResult of(Status status) {
+        return new SolveResult(status, null);
+    }
+}
@@ -5,61 +5,325 @@ import rootheart.codes.sudoku.game.Cell;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class Solver {
+public class Solver implements SolverEngine {
+    public enum Engine {
+        CELLS,
+        BITBOARD,
+        DANCING_LINKS
+    }
+
+    private static final int MAX_FORK_DEPTH = 3;
+    private static final int MIN_EMPTY_CELLS_TO_FORK = 30;
+
+    private final SolverEngine delegate;
+    private final ForkJoinPool pool;
+
+    public Solver() {
+        this(Engine.CELLS);
+    }
+
+    public Solver(Engine engine) {
+        switch (engine) {
+            case BITBOARD:
+                delegate = new BitboardSolver();
+                break;
+            case DANCING_LINKS:
+                delegate = new DancingLinksSolver();
+                break;
+            case CELLS:
+            default:
+                delegate = null;
+        }
+        pool = null;
+    }
+
+    /**
+     * Creates a solver for the {@link Engine#CELLS} engine that explores the first levels of the brute force search
+     * in parallel. Branches are only forked while the board still has many empty cells, deeper levels are searched
+     * sequentially on the board of the forked branch.
+     */
+    public Solver(ForkJoinPool pool) {
+        delegate = null;
+        this.pool = pool;
+    }
 
+    @Override
     public void solve(Board board) {
-        if (!board.hasEmptyCells()) {
-            return;
+        if (delegate != null) {
+            delegate.solve(board);
+        } else {
+            solveCells(board);
+        }
+    }
+
+    /**
+     * Solves the board like {@link #solve(Board)} and returns what the search did. Only the {@link Engine#CELLS}
+     * engine collects statistics, the other engines return empty ones.
+     */
+    public SolverStatistics solveWithStatistics(Board board) {
+        SolverStatistics statistics = new SolverStatistics();
+        board.setStatistics(statistics);
+        try {
+            solve(board);
+        } finally {
+            board.setStatistics(null);
+        }
+        return statistics;
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit) {
+        if (delegate != null) {
+            return delegate.countSolutions(board, limit);
         }
         if (!board.isValid()) {
             throw new BoardInvalidException();
         }
-        board.eliminateImpossibleCandidates();
-        if (board.isNotSolvable()) {
-            throw new NoSolutionException("found no solution");
+        if (!board.hasEmptyCells()) {
+            return 1;
+        }
+        Solutions solutions = new Solutions(limit, false);
+        int mark = board.mark();
+        try {
+            propagate(board, 0);
+            if (board.hasEmptyCells()) {
+                search(board, solutions);
+            } else {
+                solutions.add(board);
+            }
+        } catch (NoSolutionException e) {
+            return 0;
+        } finally {
+            board.rollback(mark);
+        }
+        return Math.min(solutions.getCount(), limit);
+    }
+
+    private void solveCells(Board board) {
+        if (!board.hasEmptyCells()) {
+            return;
         }
-        board.setSingleCandidates();
         if (!board.isValid()) {
             throw new BoardInvalidException();
         }
-//        int singleCandidateCount = solverBoard.getSingleCandidates().size();
-//        long emptyCellCount = board.streamEmptyCells().count();
-//        log.debug("single candidates: " + singleCandidateCount + "  remaining empty cells: " + emptyCellCount);
+        propagate(board, 0);
         if (board.hasEmptyCells()) {
-            solveBruteForce(board);
-        }
-    }
-
-    private void solveBruteForce(Board board) {
-        Board boardToSetARandomNumberTo = clone(board);
-        List<Board> solutions = new ArrayList<>();
-        Cell cell = boardToSetARandomNumberTo.getAnyEmptyCell();
-        cell.getCandidates().forEach(numberToTry -> {
-            cell.setNumber(numberToTry);
-            if (boardToSetARandomNumberTo.isValid()) {
-                Board boardToTryToSolve = clone(boardToSetARandomNumberTo);
-                try {
-//                    log.debug("Try number " + numberToTry);
-                    solve(boardToTryToSolve);
-                    solutions.add(boardToTryToSolve);
-                } catch (NoSolutionException e) {
-                    // if trying this number did not end up with a solution, try the next one
-//                    log.debug("No solution for " + numberToTry + ": " + e.getMessage());
+            Solutions solutions = new Solutions(2, true);
+            search(board, solutions);
+            if (solutions.getCount() == 0) {
+                throw new NoSolutionException("found no solution (2)");
+            }
+            if (solutions.getCount() > 1) {
+                throw new MultipleSolutionsException("found multiple solutions");
+            }
+            board.set(solutions.getFirst());
+        }
+    }
+
+    private void search(Board board, Solutions solutions) {
+        if (pool != null) {
+            pool.invoke(new BruteForceTask(board, 0, solutions));
+        } else {
+            solveBruteForce(board, 0, solutions);
+        }
+    }
+
+    private void propagate(Board board, int depth) {
+        SolverStatistics statistics = board.getStatistics();
+        do {
+            PropagationEvent event = new PropagationEvent();
+            event.begin();
+            int emptyCellsBefore = board.getEmptyCellCount();
+            if (statistics != null) {
+                statistics.propagationRound();
+            }
+            try {
+                board.eliminateImpossibleCandidates();
+                if (board.isNotSolvable()) {
+                    throw new NoSolutionException("found no solution");
+                }
+                board.setSingleCandidates();
+                if (!board.hasDirtyGroups() && board.hasEmptyCells()) {
+                    board.eliminateWithUnitTechniques();
+                }
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.depth = depth;
+                    event.emptyCellsBefore = emptyCellsBefore;
+                    event.emptyCellsAfter = board.getEmptyCellCount();
+                    event.commit();
+                }
+            }
+        } while (board.hasDirtyGroups());
+    }
+
+    /**
+     * Tries every candidate of an empty cell directly on the given board. All changes made while trying a number are
+     * recorded on the board's trail and rolled back afterwards, so the board is left as it was.
+     */
+    private void solveBruteForce(Board board, int depth, Solutions solutions) {
+        Cell cell = board.getMostConstrainedEmptyCell();
+        NumberSet numbersToTry = new NumberSet(cell.getCandidates());
+        if (pool != null && depth < MAX_FORK_DEPTH && board.getEmptyCellCount() >= MIN_EMPTY_CELLS_TO_FORK) {
+            List<NumberTask> branches = new ArrayList<>();
+            numbersToTry.forEach(numberToTry -> {
+                Board copy = board.copy();
+                if (board.getStatistics() != null) {
+                    copy.setStatistics(new SolverStatistics());
                 }
+                branches.add(new NumberTask(copy, cell.getIndex(), numberToTry, depth, solutions, board.getStatistics()));
+            });
+            ForkJoinTask.invokeAll(branches);
+            return;
+        }
+        for (int numberToTry = 1; numberToTry <= board.getMaxValue() && !solutions.isDecided(); numberToTry++) {
+            if (numbersToTry.contains(numberToTry)) {
+                tryBranch(board, cell, numberToTry, depth, solutions);
+            }
+        }
+    }
+
+    /**
+     * Tries one number in an empty cell and searches the resulting subtree. The board is rolled back afterwards.
+     */
+    private void tryBranch(Board board, Cell cell, int numberToTry, int depth, Solutions solutions) {
+        SolverStatistics statistics = board.getStatistics();
+        if (statistics != null) {
+            statistics.nodeVisited(depth);
+        }
+        BranchEvent event = new BranchEvent();
+        event.begin();
+        boolean deadEnd = false;
+        int mark = board.mark();
+        try {
+            tryNumber(board, cell, numberToTry, depth, solutions);
+        } catch (NoSolutionException e) {
+            // if trying this number did not end up with a solution, try the next one
+            deadEnd = true;
+            if (statistics != null) {
+                statistics.backtracked();
+            }
+        } finally {
+            board.rollback(mark);
+            event.end();
+            if (event.shouldCommit()) {
+                event.depth = depth;
+                event.cellIndex = cell.getIndex();
+                event.number = numberToTry;
+                event.emptyCells = board.getEmptyCellCount();
+                event.deadEnd = deadEnd;
+                event.commit();
+            }
+        }
+    }
+
+    private void tryNumber(Board board, Cell cell, int numberToTry, int depth, Solutions solutions) {
+        board.place(cell, numberToTry);
+        propagate(board, depth + 1);
+        if (board.hasEmptyCells()) {
+            solveBruteForce(board, depth + 1, solutions);
+        } else {
+            solutions.add(board);
+        }
+    }
+
+    /**
+     * Counts the solutions found by all branches of one search. Only the first solution is kept, and only if it is
+     * needed. As soon as the limit is reached the outcome is decided, and all branches that are still running stop at
+     * their next candidate.
+     */
+    private static class Solutions {
+        private final int limit;
+        private final boolean keepFirst;
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile String first;
+        private volatile boolean cancelled;
+
+        Solutions(int limit, boolean keepFirst) {
+            this.limit = limit;
+            this.keepFirst = keepFirst;
+        }
+
+        void add(Board solution) {
+            if (count.incrementAndGet() == 1 && keepFirst) {
+                first = solution.getBoardString();
             }
-        });
-        if (solutions.size() == 0) {
-            throw new NoSolutionException("found no solution (2)");
         }
-        if (solutions.size() > 1) {
-            throw new MultipleSolutionsException("found multiple solutions");
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isDecided() {
+            return cancelled || count.get() >= limit;
+        }
+
+        int getCount() {
+            return count.get();
+        }
+
+        String getFirst() {
+            return first;
+        }
+    }
+
+    private class BruteForceTask extends RecursiveAction {
+        private final Board board;
+        private final int depth;
+        private final Solutions solutions;
+
+        BruteForceTask(Board board, int depth, Solutions solutions) {
+            this.board = board;
+            this.depth = depth;
+            this.solutions = solutions;
+        }
+
+        @Override
+        protected void compute() {
+            solveBruteForce(board, depth, solutions);
         }
-        board.set(solutions.get(0).getBoardString());
     }
 
-    private Board clone(Board board) {
-        String boardString = board.getBoardString();
-        return new Board(boardString);
+    private class NumberTask extends RecursiveAction {
+        private final Board board;
+        private final int cellIndex;
+        private final int numberToTry;
+        private final int depth;
+        private final Solutions solutions;
+        private final SolverStatistics parentStatistics;
+
+        NumberTask(Board board, int cellIndex, int numberToTry, int depth, Solutions solutions,
+                   SolverStatistics parentStatistics) {
+            this.board = board;
+            this.cellIndex = cellIndex;
+            this.numberToTry = numberToTry;
+            this.depth = depth;
+            this.solutions = solutions;
+            this.parentStatistics = parentStatistics;
+        }
+
+        @Override
+        protected void compute() {
+            if (solutions.isDecided()) {
+                return;
+            }
+            try {
+                // a branch without solution is a dead end, the other branches go on
+                tryBranch(board, board.cell(cellIndex), numberToTry, depth, solutions);
+            } catch (RuntimeException e) {
+                solutions.cancel();
+                throw e;
+            } finally {
+                if (parentStatistics != null) {
+                    parentStatistics.add(board.getStatistics());
+                }
+            }
+        }
     }
 }
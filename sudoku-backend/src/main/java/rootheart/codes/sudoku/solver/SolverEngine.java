@@ -0,0 +1,16 @@
+package rootheart.codes.sudoku.solver;
+
+import rootheart.codes.sudoku.game.Board;
+
+public interface SolverEngine {
+    void solve(Board board);
+
+    /**
+     * Counts the solutions of the board, but stops searching as soon as {@code limit} solutions are found. The board
+     * itself is not changed. Use a limit of 2 to find out whether a board has exactly one solution.
+     *
+     * @return the number of solutions, at most {@code limit}
+     * @throws BoardInvalidException if a number is set twice in a row, column or block
+     */
+    int countSolutions(Board board, int limit);
+}
@@ -0,0 +1,115 @@
+package rootheart.codes.sudoku.solver;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Counters collected while solving a board with {@link Solver#solveWithStatistics}: the size of the search tree and,
+ * per {@link Technique}, how often it ran, how many candidates it eliminated and how long it took. Collecting them
+ * costs a few clock reads per technique, so they are only collected when asked for.
+ */
+@Getter
+public class SolverStatistics {
+    private static final Technique[] TECHNIQUES = Technique.values();
+
+    /**
+     * Number of branches tried, that is numbers tried in an empty cell.
+     */
+    private long nodes;
+    /**
+     * Number of branches that turned out to have no solution.
+     */
+    private long backtracks;
+    /**
+     * The most numbers tried on top of each other.
+     */
+    private int maxDepth;
+    private long propagationRounds;
+
+    @Getter(AccessLevel.NONE)
+    private final long[] invocations = new long[TECHNIQUES.length];
+    @Getter(AccessLevel.NONE)
+    private final long[] eliminations = new long[TECHNIQUES.length];
+    @Getter(AccessLevel.NONE)
+    private final long[] nanos = new long[TECHNIQUES.length];
+    @Getter(AccessLevel.NONE)
+    private Technique currentTechnique;
+
+    public long getInvocations(Technique technique) {
+        return invocations[technique.ordinal()];
+    }
+
+    public long getEliminations(Technique technique) {
+        return eliminations[technique.ordinal()];
+    }
+
+    public long getNanos(Technique technique) {
+        return nanos[technique.ordinal()];
+    }
+
+    /**
+     * Runs a technique and attributes the time and all candidates eliminated meanwhile to it.
+     */
+    public void run(Technique technique, Runnable runnable) {
+        Technique outerTechnique = currentTechnique;
+        currentTechnique = technique;
+        invocations[technique.ordinal()]++;
+        long start = System.nanoTime();
+        try {
+            runnable.run();
+        } finally {
+            nanos[technique.ordinal()] += System.nanoTime() - start;
+            currentTechnique = outerTechnique;
+        }
+    }
+
+    public void candidatesEliminated(int count) {
+        if (currentTechnique != null) {
+            eliminations[currentTechnique.ordinal()] += count;
+        }
+    }
+
+    void nodeVisited(int depth) {
+        nodes++;
+        maxDepth = Math.max(maxDepth, depth + 1);
+    }
+
+    void backtracked() {
+        backtracks++;
+    }
+
+    void propagationRound() {
+        propagationRounds++;
+    }
+
+    /**
+     * Adds the counters of a branch that was searched on a copy of the board in another thread.
+     */
+    synchronized void add(SolverStatistics other) {
+        nodes += other.nodes;
+        backtracks += other.backtracks;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        propagationRounds += other.propagationRounds;
+        for (int i = 0; i < TECHNIQUES.length; i++) {
+            invocations[i] += other.invocations[i];
+            eliminations[i] += other.eliminations[i];
+            nanos[i] += other.nanos[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("nodes: ").append(nodes)
+                .append("  backtracks: ").append(backtracks)
+                .append("  max depth: ").append(maxDepth)
+                .append("  propagation rounds: ").append(propagationRounds);
+        for (Technique technique : TECHNIQUES) {
+            sb.append("\n").append(technique)
+                    .append(": invocations ").append(getInvocations(technique))
+                    .append(", eliminations ").append(getEliminations(technique))
+                    .append(", ").append(getNanos(technique) / 1000).append("µs");
+        }
+        return sb.toString();
+    }
+}
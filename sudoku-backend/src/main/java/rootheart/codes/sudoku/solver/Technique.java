@@ -0,0 +1,23 @@
+package rootheart.codes.sudoku.solver;
+
+/**
+ * The techniques used to eliminate candidates. The first ones are run by each cell on its buddy cells; the ones from
+ * {@link #HIDDEN_PAIRS} on look at whole rows, columns and blocks and only run when the cell techniques are stuck.
+ */
+public enum Technique {
+    /**
+     * Removes the number of a solved cell, or the only candidate of a cell, from the candidates of its buddy cells.
+     * This technique cannot be switched off.
+     */
+    NAKED_SINGLE,
+    HIDDEN_SINGLE,
+    LOCKED_CANDIDATES,
+    NAKED_TWINS,
+    HIDDEN_PAIRS,
+    NAKED_TRIPLES,
+    HIDDEN_TRIPLES,
+    X_WING,
+    NAKED_QUADS,
+    HIDDEN_QUADS,
+    SWORDFISH
+}
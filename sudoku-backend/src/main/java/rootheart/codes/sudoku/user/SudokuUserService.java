@@ -1,14 +1,24 @@
 package rootheart.codes.sudoku.user;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-@RequiredArgsConstructor
 public class SudokuUserService implements UserDetailsService {
     private final SudokuUserRepository userRepository;
+    private final Cache<Long, SudokuUser> usersById;
+
+    public SudokuUserService(SudokuUserRepository userRepository,
+                             @Value("${sudoku.users.cache-size:1000}") long cacheSize) {
+        this.userRepository = userRepository;
+        usersById = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
 
     @Override
     public SudokuUser loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -18,4 +28,13 @@ public class SudokuUserService implements UserDetailsService {
         }
         return user;
     }
+
+    /**
+     * Returns the user with the given id from a small cache, for the requests that need the user itself and not only
+     * the {@link UserPrincipal}.
+     */
+    public SudokuUser getUser(long id) throws UsernameNotFoundException {
+        return usersById.get(id, key -> userRepository.findById(key)
+                .orElseThrow(() -> new UsernameNotFoundException("user " + key)));
+    }
 }
@@ -0,0 +1,20 @@
+package rootheart.codes.sudoku.user;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The user of an authenticated request, taken from the claims of the JWT, so that the request does not have to load
+ * the user.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserPrincipal {
+    private final long id;
+    private final String username;
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
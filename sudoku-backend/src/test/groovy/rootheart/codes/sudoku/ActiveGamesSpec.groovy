@@ -0,0 +1,183 @@
+package rootheart.codes.sudoku
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import rootheart.codes.sudoku.game.ActiveGames
+import rootheart.codes.sudoku.game.Game
+import rootheart.codes.sudoku.game.GameJournal
+import rootheart.codes.sudoku.game.GameMoveRepository
+import rootheart.codes.sudoku.game.GameRepository
+import rootheart.codes.sudoku.game.GameService
+import rootheart.codes.sudoku.game.JournalFlush
+import rootheart.codes.sudoku.user.SudokuUser
+import rootheart.codes.sudoku.user.SudokuUserRepository
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+@SpringBootTest
+class ActiveGamesSpec extends Specification {
+    @Autowired
+    GameService gameService
+    @Autowired
+    ActiveGames activeGames
+    @Autowired
+    GameRepository gameRepository
+    @Autowired
+    GameMoveRepository moveRepository
+    @Autowired
+    SudokuUserRepository userRepository
+
+    def 'Moves are written behind and survive the eviction of the game'() {
+        given: 'A player with a new game'
+        def player = userRepository.save(new SudokuUser(username: 'writer', password: '123'))
+        def gameId = gameService.create(player, 3, null).id
+
+        when: 'I make five moves and take back one'
+        (1..5).each { gameService.makeMove(player.id, gameId, it, 1, it) }
+        gameService.undo(player.id, gameId)
+
+        then: 'Nothing is written yet'
+        moveRepository.findByGameIdAndMoveNumberBetweenOrderByMoveNumber(gameId, 1, 10).empty
+        gameRepository.findById(gameId).get().moveCount == 0
+
+        when: 'The active games are flushed'
+        activeGames.flush()
+
+        then: 'The moves and the move count are written'
+        moveRepository.findByGameIdAndMoveNumberBetweenOrderByMoveNumber(gameId, 1, 10).size() == 5
+        gameRepository.findById(gameId).get().moveCount == 4
+
+        when: 'I make a new move, which drops the move that was taken back, and the game is evicted'
+        gameService.makeMove(player.id, gameId, 9, 9, 9)
+        activeGames.evict(gameId)
+
+        then: 'The changes were written while the game was evicted'
+        moveRepository.findByGameIdAndMoveNumberBetweenOrderByMoveNumber(gameId, 1, 10)*.number == [1, 2, 3, 4, 9]
+
+        and: 'The game is loaded again with the same board'
+        gameService.get(player.id, gameId).board.toBoardString() == "123400000" + "0" * 71 + "9"
+    }
+
+    def 'A new snapshot is written with the move counts'() {
+        given: 'A player with a new game'
+        def player = userRepository.save(new SudokuUser(username: 'snapshotter', password: '123'))
+        def gameId = gameService.create(player, 3, null).id
+
+        when: 'I make more moves than the snapshot interval and the game is evicted'
+        (0..<25).each { gameService.makeMove(player.id, gameId, it % 9 + 1, it.intdiv(9) + 1, it % 9 + 1) }
+        def board = gameService.get(player.id, gameId).board.toBoardString()
+        activeGames.evict(gameId)
+
+        then: 'The snapshot and the move counts are written'
+        def game = gameRepository.findById(gameId).get()
+        game.snapshotMoveCount == 24
+        game.moveCount == 25
+        game.journalLength == 25
+        game.snapshot.toBoardString() == "123456789" * 2 + "123456" + "0" * 57
+
+        and: 'The game is loaded again with the same board'
+        gameService.get(player.id, gameId).board.toBoardString() == board
+    }
+
+    def 'Other players do not get the game'() {
+        given:
+        def player = userRepository.save(new SudokuUser(username: 'owner', password: '123'))
+        def other = userRepository.save(new SudokuUser(username: 'other', password: '123'))
+        def gameId = gameService.create(player, 3, null).id
+
+        expect:
+        gameService.get(other.id, gameId) == null
+        gameService.makeMove(other.id, gameId, 1, 1, 1) == null
+    }
+
+    def 'A game that is evicted while its changes are written is loaded after the write'() {
+        given: 'An active game with a move and a journal that writes slowly'
+        def events = [].asSynchronized()
+        def writing = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def journal = new GameJournal(null, null, 20) {
+            @Override
+            void write(JournalFlush flush) {
+                writing.countDown()
+                release.await()
+                events << 'write'
+            }
+        }
+        def repository = Stub(GameRepository) {
+            findByIdAndPlayerId(1, 7) >> { events << 'load'; new Game(id: 1, player: new SudokuUser(id: 7)) }
+        }
+        def active = new ActiveGames(repository, journal, 10, 900, 3_600_000)
+        def game = new Game(id: 1, player: new SudokuUser(id: 7))
+        active.add(game)
+        synchronized (game) {
+            journal.move(game, 1, 1, 1)
+        }
+
+        when: 'The game is evicted and loaded while the flush writes it'
+        def flush = Thread.start { active.flush() }
+        writing.await(5, TimeUnit.SECONDS)
+        def evict = Thread.start {
+            active.evict(1)
+            active.get(7, 1)
+        }
+        evict.join(200)
+
+        then: 'The eviction waits for the write'
+        evict.alive
+        events.empty
+
+        when:
+        release.countDown()
+        flush.join(5000)
+        evict.join(5000)
+
+        then: 'The game is loaded after its changes are written'
+        events == ['write', 'load']
+    }
+
+    def 'A game that cannot be written keeps its changes and does not hold back the others'() {
+        given: 'Two active games with a move each, the first cannot be written'
+        def written = [].asSynchronized()
+        def failing = [1L].asSynchronized()
+        def journal = new GameJournal(null, null, 20) {
+            @Override
+            void write(JournalFlush flush) {
+                if (flush.gameId in failing) {
+                    throw new IllegalStateException('the database is down')
+                }
+                written << flush.gameId
+            }
+        }
+        def repository = Mock(GameRepository)
+        def active = new ActiveGames(repository, journal, 10, 900, 3_600_000)
+        def games = (1..2).collect { new Game(id: it, player: new SudokuUser(id: 7)) }
+        games.each { game ->
+            active.add(game)
+            synchronized (game) {
+                journal.move(game, 1, 1, 1)
+            }
+        }
+
+        when:
+        active.flush()
+
+        then: 'The second game is written'
+        written == [2L]
+
+        when: 'The first game is evicted, and it still cannot be written'
+        active.evict(1)
+
+        then: 'It is taken back instead of being loaded'
+        active.get(7, 1).is(games[0])
+        0 * repository.findByIdAndPlayerId(_, _)
+
+        when: 'The database is back'
+        failing.clear()
+        active.flush()
+
+        then: 'Its changes are written'
+        written == [2L, 1L]
+    }
+}
@@ -2,6 +2,7 @@ package rootheart.codes.sudoku
 
 import rootheart.codes.sudoku.game.Board
 import rootheart.codes.sudoku.solver.NumberSet
+import rootheart.codes.sudoku.solver.Technique
 import spock.lang.Specification
 
 class BoardSpec extends Specification {
@@ -159,4 +160,141 @@ class BoardSpec extends Specification {
         board.cell(1, 0).candidates == new NumberSet(2, 3)
         board.cell(2, 0).candidates == new NumberSet(2, 3)
     }
+
+    def 'Test that rolling back restores the board'() {
+        given:
+        def board = new Board("000789456" + "000000000" * 8)
+        def boardString = board.boardString
+        def candidates = (0..8).collect { new NumberSet(board.cell(it, 1).candidates) }
+
+        when:
+        def mark = board.mark()
+        board.place(board.anyEmptyCell, 1)
+        board.eliminateImpossibleCandidates()
+
+        then:
+        board.boardString != boardString
+
+        when:
+        board.rollback(mark)
+
+        then:
+        board.boardString == boardString
+        (0..8).collect { board.cell(it, 1).candidates } == candidates
+        board.anyEmptyCell.empty
+    }
+
+    def 'Test that the most constrained empty cell is chosen'() {
+        given:
+        def board = new Board("000000000" * 4 + "123456000" + "000000000" * 4)
+
+        expect:
+        board.mostConstrainedEmptyCell.candidates == new NumberSet(7, 8, 9)
+
+        when:
+        def mark = board.mark()
+        board.cell(8, 4).removeCandidate(7)
+        board.cell(8, 4).removeCandidate(8)
+
+        then:
+        board.mostConstrainedEmptyCell.is(board.cell(8, 4))
+
+        when:
+        board.rollback(mark)
+
+        then:
+        board.mostConstrainedEmptyCell.candidates == new NumberSet(7, 8, 9)
+    }
+
+    def 'Test that a copy shares the topology but not the cells'() {
+        given:
+        def board = new Board("000789456" + "000000000" * 8)
+        board.cell(0, 1).removeCandidate(1)
+
+        when:
+        def copy = board.copy()
+
+        then:
+        copy.topology.is(board.topology)
+        copy.boardString == board.boardString
+        copy.cell(0, 1).candidates == board.cell(0, 1).candidates
+        copy.emptyCellCount == board.emptyCellCount
+
+        when:
+        copy.place(copy.cell(0, 0), 1)
+
+        then:
+        copy.cell(0, 0).number == 1
+        board.cell(0, 0).empty
+        board.cell(1, 0).candidates.contains(1)
+    }
+
+    def 'Test that 16x16 boards are read and written with letters'() {
+        given:
+        def board = new Board("123456789ABCDEFG" + "." * 240)
+
+        expect:
+        board.size == 4
+        board.maxValue == 16
+        board.cell(9, 0).number == 10
+        board.cell(15, 0).number == 16
+        board.boardString == "123456789abcdefg" + "0" * 240
+        board.cell(0, 1).candidates == new NumberSet((5..16) as int[])
+    }
+
+    def 'Test that unknown characters and numbers larger than the board are rejected'() {
+        when:
+        new Board(boardString)
+
+        then:
+        thrown IllegalArgumentException
+
+        where:
+        boardString << ["x" + "0" * 80, "a" + "0" * 80, "0" * 100]
+    }
+
+    def 'Test that a hidden pair removes the other candidates of its cells'() {
+        given:
+        def board = new Board("0" * 81)
+        board.techniques = [Technique.HIDDEN_PAIRS] as Set
+        (2..8).each { board.cell(it, 0).removeCandidates(new NumberSet(1, 2)) }
+
+        when:
+        board.eliminateWithUnitTechniques()
+
+        then:
+        board.cell(0, 0).candidates == new NumberSet(1, 2)
+        board.cell(1, 0).candidates == new NumberSet(1, 2)
+    }
+
+    def 'Test that a naked triple removes its numbers from the other cells of the unit'() {
+        given:
+        def board = new Board("0" * 81)
+        board.techniques = [Technique.NAKED_TRIPLES] as Set
+        (0..2).each { board.cell(it, 0).removeCandidates(new NumberSet(4, 5, 6, 7, 8, 9)) }
+        board.cell(0, 0).removeCandidate(3)
+
+        when:
+        board.eliminateWithUnitTechniques()
+
+        then:
+        (3..8).every { !board.cell(it, 0).candidates.containsAny(new NumberSet(1, 2, 3)) }
+        board.cell(0, 0).candidates == new NumberSet(1, 2)
+    }
+
+    def 'Test that an X-Wing removes its number from the other cells of its columns'() {
+        given:
+        def board = new Board("0" * 81)
+        board.techniques = [Technique.X_WING] as Set
+        [0, 4].each { row -> ((0..8) - [2, 7]).each { board.cell(it, row).removeCandidate(1) } }
+
+        when:
+        board.eliminateWithUnitTechniques()
+
+        then:
+        ((0..8) - [0, 4]).every { !board.cell(2, it).candidates.contains(1) && !board.cell(7, it).candidates.contains(1) }
+        board.cell(2, 0).candidates.contains(1)
+        board.cell(7, 4).candidates.contains(1)
+        board.cell(3, 3).candidates.contains(1)
+    }
 }
@@ -11,7 +11,8 @@ class CellSpec extends Specification {
         def board = new Board("0" * 81)
 
         when:
-        def cells = board.cell(cellColumnIndex, cellRowIndex).cellsInSameBlockInOtherRows.cells
+        def cellIndex = board.cell(cellColumnIndex, cellRowIndex).index
+        def cells = board.topology.blockPeersInOtherRows[cellIndex].collect { board.cell(it) }
 
         then:
         cells.size() == 6
@@ -38,7 +39,8 @@ class CellSpec extends Specification {
         def board = new Board("0" * 81)
 
         when:
-        def cells = board.cell(cellColumnIndex, cellRowIndex).cellsInSameBlockInOtherColumns.cells
+        def cellIndex = board.cell(cellColumnIndex, cellRowIndex).index
+        def cells = board.topology.blockPeersInOtherColumns[cellIndex].collect { board.cell(it) }
 
         then:
         cells.size() == 6
@@ -65,7 +67,8 @@ class CellSpec extends Specification {
         def board = new Board("0" * 81)
 
         when:
-        def cells = board.cell(cellColumnIndex, cellRowIndex).cellsInSameRowInOtherBlocks.cells
+        def cellIndex = board.cell(cellColumnIndex, cellRowIndex).index
+        def cells = board.topology.rowPeersInOtherBlocks[cellIndex].collect { board.cell(it) }
 
         then:
         cells.size() == 6
@@ -91,7 +94,8 @@ class CellSpec extends Specification {
         def board = new Board("0" * 81)
 
         when:
-        def cells = board.cell(cellColumnIndex, cellRowIndex).cellsInSameColumnInOtherBlocks.cells
+        def cellIndex = board.cell(cellColumnIndex, cellRowIndex).index
+        def cells = board.topology.columnPeersInOtherBlocks[cellIndex].collect { board.cell(it) }
 
         then:
         cells.size() == 6
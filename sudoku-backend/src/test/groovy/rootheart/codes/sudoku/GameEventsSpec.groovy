@@ -0,0 +1,219 @@
+package rootheart.codes.sudoku
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter
+import rootheart.codes.sudoku.game.Game
+import rootheart.codes.sudoku.game.GameDeltaDto
+import rootheart.codes.sudoku.game.GameDto
+import rootheart.codes.sudoku.game.GameEvaluation
+import rootheart.codes.sudoku.game.GameEvents
+import rootheart.codes.sudoku.game.GameSnapshot
+import rootheart.codes.sudoku.game.GameStatus
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CountDownLatch
+
+class GameEventsSpec extends Specification {
+    def gameEvents = new GameEvents(20, 60_000, 5_000, 3)
+    def ok = GameEvaluation.of(GameStatus.OK)
+    def conditions = new PollingConditions(timeout: 5)
+
+    def cleanup() {
+        gameEvents.stop()
+    }
+
+    def 'Subscribers get a snapshot and then the changed cells'() {
+        given: 'a game with a subscriber'
+        def game = new Game(id: 1)
+        def subscriber = new RecordingEmitter()
+        gameEvents.subscribe(game, snapshot(game), subscriber)
+
+        expect: 'the snapshot of the empty board'
+        conditions.eventually {
+            assert subscriber.events.size() == 1
+        }
+        (subscriber.events[0] as GameDto).board == '0' * 81
+
+        when: 'three moves are made in a burst, one of them overwrites another'
+        game.set(1, 1, 5)
+        changed(game)
+        game.set(9, 9, 9)
+        changed(game)
+        game.set(1, 1, 6)
+        changed(game)
+
+        then: 'they are sent in one frame with the last number of each cell'
+        conditions.eventually {
+            assert subscriber.events.size() == 2
+        }
+        def frame = subscriber.events[1] as GameDeltaDto
+        frame.cells.collect { [it.cell, it.number] } == [[0, 6], [80, 9]]
+        frame.status == GameStatus.OK
+    }
+
+    def 'A late subscriber resyncs from the snapshot'() {
+        given: 'a game with one subscriber that saw a move'
+        def game = new Game(id: 2)
+        def first = new RecordingEmitter()
+        gameEvents.subscribe(game, snapshot(game), first)
+        game.set(2, 1, 3)
+        changed(game)
+        conditions.eventually {
+            assert first.events.size() == 2
+        }
+
+        when: 'another subscriber comes in'
+        def second = new RecordingEmitter()
+        gameEvents.subscribe(game, snapshot(game), second)
+
+        then: 'its snapshot has the move'
+        conditions.eventually {
+            assert second.events.size() == 1
+        }
+        (second.events[0] as GameDto).board == '03' + '0' * 79
+
+        when: 'a move is taken back before the frame is sent'
+        game.set(3, 1, 4)
+        changed(game)
+        game.setCell(2, 0)
+        changed(game)
+        game.set(4, 1, 1)
+        changed(game)
+
+        then: 'both subscribers only get the move that is left'
+        conditions.eventually {
+            assert first.events.size() == 3
+            assert second.events.size() == 2
+        }
+        (first.events[2] as GameDeltaDto).cells.collect { [it.cell, it.number] } == [[3, 1]]
+        (second.events[1] as GameDeltaDto).cells.collect { [it.cell, it.number] } == [[3, 1]]
+    }
+
+    def 'A change of the status alone is sent'() {
+        given: 'a game with a subscriber'
+        def game = new Game(id: 4)
+        def subscriber = new RecordingEmitter()
+        gameEvents.subscribe(game, snapshot(game, GameEvaluation.of(GameStatus.UNKNOWN)), subscriber)
+        conditions.eventually {
+            assert subscriber.events.size() == 1
+        }
+
+        when: 'the same board is evaluated again with another status'
+        changed(game)
+
+        then: 'a frame without cells has the new status'
+        conditions.eventually {
+            assert subscriber.events.size() == 2
+        }
+        def frame = subscriber.events[1] as GameDeltaDto
+        frame.cells.empty
+        frame.status == GameStatus.OK
+    }
+
+    def 'The status of a frame is for the board of the frame'() {
+        given: 'a game with a subscriber'
+        def game = new Game(id: 5)
+        def subscriber = new RecordingEmitter()
+        gameEvents.subscribe(game, snapshot(game), subscriber)
+        conditions.eventually {
+            assert subscriber.events.size() == 1
+        }
+
+        when: 'the board changes again before the evaluation of a move is handed over'
+        def stale = snapshot(game, GameEvaluation.of(GameStatus.UNSOLVABLE))
+        game.set(1, 1, 1)
+        gameEvents.changed(game, stale)
+        Thread.sleep(200)
+
+        then: 'no frame is sent with a status for another board'
+        subscriber.events.size() == 1
+
+        when: 'the evaluation of the current board is handed over'
+        changed(game)
+
+        then: 'the frame has the move and its status'
+        conditions.eventually {
+            assert subscriber.events.size() == 2
+        }
+        (subscriber.events[1] as GameDeltaDto).cells.collect { [it.cell, it.number] } == [[0, 1]]
+        (subscriber.events[1] as GameDeltaDto).status == GameStatus.OK
+
+        when: 'a conflict is made and the evaluation is stale again'
+        stale = snapshot(game)
+        game.set(9, 1, 1)
+        gameEvents.changed(game, stale)
+
+        then: 'the conflict is known from the board itself'
+        conditions.eventually {
+            assert subscriber.events.size() == 3
+        }
+        (subscriber.events[2] as GameDeltaDto).status == GameStatus.CONFLICT
+        (subscriber.events[2] as GameDeltaDto).conflicts.collect { [it.column, it.row] } == [[1, 1], [9, 1]]
+    }
+
+    def 'A stalled subscriber is dropped without holding back the others'() {
+        given: 'a subscriber that does not take its snapshot and one that does'
+        def game = new Game(id: 3)
+        def release = new CountDownLatch(1)
+        def stalled = new StalledEmitter(release)
+        def other = new RecordingEmitter()
+        gameEvents.subscribe(game, snapshot(game), stalled)
+        gameEvents.subscribe(game, snapshot(game), other)
+        conditions.eventually {
+            assert other.events.size() == 1
+        }
+
+        when: 'five moves are made, each in a frame of its own'
+        (1..5).each { number ->
+            game.set(number, 1, number)
+            changed(game)
+            conditions.eventually {
+                assert other.events.size() == number + 1
+            }
+        }
+
+        then: 'the other subscriber got every frame, and the stalled one is dropped'
+        conditions.eventually {
+            assert stalled.completed
+        }
+
+        cleanup:
+        release.countDown()
+    }
+
+    private GameSnapshot snapshot(Game game, GameEvaluation evaluation = ok) {
+        new GameSnapshot(game.id, game.board.copy(), evaluation)
+    }
+
+    private void changed(Game game) {
+        gameEvents.changed(game, snapshot(game))
+    }
+
+    static class StalledEmitter extends SseEmitter {
+        CountDownLatch release
+        volatile boolean completed
+
+        StalledEmitter(CountDownLatch release) {
+            this.release = release
+        }
+
+        @Override
+        void send(SseEmitter.SseEventBuilder builder) throws IOException {
+            release.await()
+        }
+
+        @Override
+        void complete() {
+            completed = true
+        }
+    }
+
+    static class RecordingEmitter extends SseEmitter {
+        List<Object> events = [].asSynchronized()
+
+        @Override
+        void send(SseEmitter.SseEventBuilder builder) throws IOException {
+            events << builder.build().find { !(it.data instanceof String) }.data
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package rootheart.codes.sudoku
+
+import rootheart.codes.sudoku.game.Game
+import rootheart.codes.sudoku.game.GameService
+import rootheart.codes.sudoku.game.GameStatus
+import rootheart.codes.sudoku.game.PackedBoard
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class GameServiceSpec extends Specification {
+    private static String solution = "534678912" +
+            "672195348" +
+            "198342567" +
+            "859761423" +
+            "426853791" +
+            "713924856" +
+            "961537284" +
+            "287419635" +
+            "345286179"
+
+    private GameService gameService = new GameService(null, null, null, null, 2000, 50000)
+
+    @Unroll
+    def 'A board #description is evaluated as #status'() {
+        when:
+        def evaluation = gameService.evaluate(board)
+
+        then:
+        evaluation.status == status
+        evaluation.conflicts.collect { [it.column, it.row] } == conflicts
+
+        where:
+        description                  | board                                 | status                | conflicts
+        'without numbers'            | "0" * 81                              | GameStatus.OK         | []
+        'with two fives in a row'    | "5" + "0" * 7 + "5" + "0" * 72        | GameStatus.CONFLICT   | [[1, 1], [9, 1]]
+        'with two fives in a block'  | "5" + "0" * 9 + "5" + "0" * 70        | GameStatus.CONFLICT   | [[1, 1], [2, 2]]
+        'that is solved'             | solution                              | GameStatus.SOLVED     | []
+        'that is full with conflict' | "4" + solution.substring(1)           | GameStatus.COMPLETE   | [[1, 1], [3, 1], [1, 5]]
+    }
+
+    def 'A board without conflicts that has no solution is unsolvable'() {
+        given: 'The first row misses a nine, but the nine is in the last column'
+        def board = "12345678" + "0" + "0" * 8 + "9" + "0" * 63
+
+        expect:
+        gameService.evaluate(board).status == GameStatus.UNSOLVABLE
+    }
+
+    def 'A board the solver cannot decide within the node limit is unknown'() {
+        given:
+        def impatientService = new GameService(null, null, null, null, 10, 10)
+        def game = new Game(5)
+
+        expect:
+        impatientService.evaluate("0" * 625).status == GameStatus.UNKNOWN
+        impatientService.evaluate(game).evaluation.status == GameStatus.UNKNOWN
+        gameService.evaluate(game).evaluation.status == GameStatus.OK
+    }
+
+    def 'Moves keep the occupancy of the game up to date'() {
+        given:
+        def game = new Game(3)
+        game.setBoard(PackedBoard.of("0" + solution.substring(1)))
+
+        expect:
+        gameService.evaluate(game).evaluation.status == GameStatus.OK
+
+        when: 'I put a wrong number in the empty cell'
+        game.set(1, 1, 6)
+
+        then:
+        gameService.evaluate(game).evaluation.status == GameStatus.COMPLETE
+
+        when: 'I correct it'
+        game.set(1, 1, 5)
+
+        then: 'The evaluation comes with the board it was made for'
+        def snapshot = gameService.evaluate(game)
+        snapshot.evaluation.status == GameStatus.SOLVED
+        snapshot.board.toBoardString() == solution
+        game.board.toBoardString() == solution
+    }
+}
@@ -1,10 +1,17 @@
 package rootheart.codes.sudoku
 
+import com.auth0.jwt.JWT
 import groovyx.net.http.ContentType
+import groovyx.net.http.HttpResponseException
 import groovyx.net.http.RESTClient
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
 import org.springframework.boot.test.context.SpringBootTest
 import org.springframework.boot.web.server.LocalServerPort
+import rootheart.codes.sudoku.game.Board
+import rootheart.codes.sudoku.game.PackedBoard
+import rootheart.codes.sudoku.generator.Difficulty
+import rootheart.codes.sudoku.security.SecurityConstants
+import rootheart.codes.sudoku.solver.Solver
 import spock.lang.Ignore
 import spock.lang.Specification
 
@@ -29,8 +36,9 @@ class GameSpec extends Specification {
         when: 'I login'
         def loginResponse = client.post(path: '/login', body: usernameAndPassword)
 
-        then: 'I received an authorization token'
-        loginResponse["headers"]["Authorization"]["value"]
+        then: 'I received an authorization token with my user id'
+        def token = loginResponse["headers"]["Authorization"]["value"] as String
+        JWT.decode(token - SecurityConstants.BEARER_TOKEN_PREFIX).getClaim(SecurityConstants.USER_ID_CLAIM).asLong() > 0
 
         when: 'I create a new game'
         client.headers = ["Authorization": loginResponse["headers"]["Authorization"]["value"] as String]
@@ -46,12 +54,15 @@ class GameSpec extends Specification {
 
         then: 'The board has changed accordingly'
         game['responseData']['board'] == ("000000000" * 8) + "000000001"
+        game['responseData']['status'] == 'OK'
 
         when: 'I put a one in the bottom left field'
         game = client.put(path: "/game/$gameId/1/9/1")
 
-        then: 'The board has changed accordingly'
+        then: 'The board has changed accordingly, with two ones in the last row'
         game['responseData']['board'] == ("000000000" * 8) + "100000001"
+        game['responseData']['status'] == 'CONFLICT'
+        game['responseData']['conflicts'] == [[column: 1, row: 9], [column: 9, row: 9]]
 
         when: 'I put a five in the exact center field'
         game = client.put(path: "/game/$gameId/5/5/5")
@@ -62,7 +73,127 @@ class GameSpec extends Specification {
         when: 'I put a nine in the bottom right field'
         game = client.put(path: "/game/$gameId/9/9/9")
 
-        then: 'The board has changed accordingly'
+        then: 'The board has changed accordingly and the conflict is gone'
         game['responseData']['board'] == ("000000000" * 4) + "000050000" + ("000000000" * 3) + "100000009"
+        game['responseData']['status'] == 'OK'
+        game['responseData']['conflicts'] == []
+
+        when: 'I get the game with the packed board'
+        game = client.get(path: "/game/$gameId", query: [packed: true])
+
+        then: 'The board is packed into 41 bytes'
+        game['responseData']['board'] == null
+        PackedBoard.ofBase64(game['responseData']['packedBoard'] as String).toBoardString() ==
+                ("000000000" * 4) + "000050000" + ("000000000" * 3) + "100000009"
+    }
+
+    def 'Test undoing, redoing and replaying moves'() {
+        given: 'A logged in user with a new game'
+        def usernameAndPassword = """{"username": "undoer", "password": "123"}"""
+        def client = new RESTClient("http://localhost:$port", ContentType.JSON)
+        client.post(path: '/user/sign-up', body: usernameAndPassword)
+        def loginResponse = client.post(path: '/login', body: usernameAndPassword)
+        client.headers = ["Authorization": loginResponse["headers"]["Authorization"]["value"] as String]
+        def gameId = client.post(path: '/game')['responseData']['gameId']
+
+        when: 'I put the numbers one to five into the first row'
+        (1..5).each { client.put(path: "/game/$gameId/$it/1/$it") }
+
+        then: 'They are on the board'
+        client.get(path: "/game/$gameId")['responseData']['board'] == "123450000" + "0" * 72
+
+        when: 'I take back four moves'
+        4.times { client.put(path: "/game/$gameId/undo") }
+
+        then: 'Only the first move is left, also when I load the game again'
+        client.get(path: "/game/$gameId")['responseData']['board'] == "100000000" + "0" * 72
+
+        when: 'I redo one move'
+        def game = client.put(path: "/game/$gameId/redo")
+
+        then: 'The second move is back'
+        game['responseData']['board'] == "120000000" + "0" * 72
+
+        when: 'I make a new move and try to redo another one'
+        client.put(path: "/game/$gameId/9/9/9")
+        game = client.put(path: "/game/$gameId/redo")
+
+        then: 'The moves that were taken back are gone'
+        game['responseData']['board'] == "120000000" + "0" * 71 + "9"
+
+        when: 'I replay the game'
+        def replay = client.get(path: "/game/$gameId/replay")['responseData']
+
+        then: 'It starts with an empty board and has the three moves'
+        replay['initialBoard'] == "0" * 81
+        replay['moves'] == [[column: 1, row: 1, number: 1], [column: 2, row: 1, number: 2],
+                            [column: 9, row: 9, number: 9]]
+    }
+
+    def 'Test creating a game with a puzzle from the pool'() {
+        given: 'A logged in user'
+        def usernameAndPassword = """{"username": "puzzler", "password": "123"}"""
+        def client = new RESTClient("http://localhost:$port", ContentType.JSON)
+        client.post(path: '/user/sign-up', body: usernameAndPassword)
+        def loginResponse = client.post(path: '/login', body: usernameAndPassword)
+        client.headers = ["Authorization": loginResponse["headers"]["Authorization"]["value"] as String]
+
+        when: 'I create a new game of medium difficulty'
+        def game = client.post(path: '/game', query: [difficulty: 'MEDIUM'])
+
+        then: 'Its board is a puzzle with exactly one solution'
+        def board = game['responseData']['board'] as String
+        board.count('0') <= 81 - Difficulty.MEDIUM.cluesFor(3)
+        new Solver(Solver.Engine.BITBOARD).countSolutions(new Board(board), 2) == 1
+
+        when: 'I look at the puzzle pool'
+        def statistics = client.get(path: '/puzzle-pool')['responseData']
+
+        then: 'The puzzle was taken from it or generated because it was empty'
+        def medium = statistics.find { it['difficulty'] == 'MEDIUM' }
+        medium['taken'] + medium['misses'] == 1
+
+        when: 'I validate the puzzle'
+        def evaluation = client.get(path: "/game/validate/$board")['responseData']
+
+        then: 'It can be solved'
+        evaluation['status'] == 'OK'
+    }
+
+    def 'Test a game that does not exist or belongs to another player'() {
+        given: 'A game of one player and a second logged in player'
+        def gameId = login('owner').post(path: '/game')['responseData']['gameId']
+        def client = login('intruder')
+
+        when: 'The second player accesses the game of the first one'
+        def statuses = [{ client.get(path: "/game/$gameId") },
+                        { client.put(path: "/game/$gameId/1/1/1") },
+                        { client.put(path: "/game/$gameId/undo") },
+                        { client.put(path: "/game/$gameId/redo") },
+                        { client.get(path: "/game/$gameId/replay") }].collect { status(it) }
+
+        then: 'The game is not found'
+        statuses == [404] * 5
+
+        expect: 'A game that does not exist is not found either'
+        status { client.put(path: '/game/999999/1/1/1') } == 404
+        status { client.get(path: '/game/999999/replay') } == 404
+    }
+
+    private RESTClient login(String username) {
+        def usernameAndPassword = """{"username": "$username", "password": "123"}"""
+        def client = new RESTClient("http://localhost:$port", ContentType.JSON)
+        client.post(path: '/user/sign-up', body: usernameAndPassword)
+        def loginResponse = client.post(path: '/login', body: usernameAndPassword)
+        client.headers = ["Authorization": loginResponse["headers"]["Authorization"]["value"] as String]
+        return client
+    }
+
+    private static int status(Closure request) {
+        try {
+            return request()['status'] as int
+        } catch (HttpResponseException e) {
+            return e.statusCode
+        }
     }
 }
@@ -0,0 +1,64 @@
+package rootheart.codes.sudoku
+
+import rootheart.codes.sudoku.game.PackedBoard
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class PackedBoardSpec extends Specification {
+    @Unroll
+    def 'A #size x #size board takes #bytes bytes and survives the round trip'() {
+        given:
+        def maxValue = size * size
+        def random = new Random(size)
+        def boardString = (0..<maxValue * maxValue).collect { Character.forDigit(random.nextInt(maxValue + 1), 36) }.join()
+
+        when:
+        def board = PackedBoard.of(boardString)
+
+        then:
+        board.toBytes().length == bytes
+        board.toBoardString() == boardString
+        PackedBoard.of(board.toBytes()) == board
+        PackedBoard.ofBase64(board.toBase64()).toBoardString() == boardString
+
+        where:
+        size | bytes
+        2    | 8
+        3    | 41
+        4    | 160
+        5    | 391
+    }
+
+    def 'The first cell is in the high nibble of the first byte'() {
+        when:
+        def board = PackedBoard.of("93" + "0" * 79)
+
+        then:
+        board.toBytes()[0] == (byte) 0x93
+        board.toBytes()[1..40].every { it == 0 }
+    }
+
+    def 'Cells are updated in place without touching their neighbours'() {
+        given:
+        def board = PackedBoard.of("p" * 625)
+
+        when:
+        board.set(3, 0, 1)
+        board.set(624, 0)
+
+        then:
+        board.toBoardString() == "ppp1" + "p" * 620 + "0"
+        board.get(3, 0) == 1
+    }
+
+    def 'Invalid boards are rejected'() {
+        when:
+        PackedBoard.of(bytes as byte[])
+
+        then:
+        thrown IllegalArgumentException
+
+        where:
+        bytes << [[0] * 40, [0xa0] + [0] * 40]
+    }
+}
@@ -0,0 +1,43 @@
+package rootheart.codes.sudoku
+
+import rootheart.codes.sudoku.game.SolverBusyException
+import rootheart.codes.sudoku.game.SolverExecutor
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class SolverExecutorSpec extends Specification {
+    def executor = new SolverExecutor(1, 1)
+
+    def cleanup() {
+        executor.stop()
+    }
+
+    def 'Work is run on the solver threads'() {
+        expect:
+        executor.submit { Thread.currentThread().name }.get(5, TimeUnit.SECONDS) == 'solver'
+    }
+
+    def 'Work is rejected when the queue is full'() {
+        given: 'the solver thread is busy and one task waits'
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def running = executor.submit { started.countDown(); release.await(); 1 }
+        started.await(5, TimeUnit.SECONDS)
+        def waiting = executor.submit { 2 }
+
+        when:
+        executor.submit { 3 }
+
+        then:
+        thrown SolverBusyException
+
+        when:
+        release.countDown()
+
+        then:
+        running.get(5, TimeUnit.SECONDS) == 1
+        waiting.get(5, TimeUnit.SECONDS) == 2
+    }
+}
@@ -0,0 +1,68 @@
+package rootheart.codes.sudoku.bulk
+
+import rootheart.codes.sudoku.game.Board
+import rootheart.codes.sudoku.solver.Solver
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class BulkSolverSpec extends Specification {
+    static String sudoku = '000000010400000000020000000000050407008000300001090000300400200050100000000806000'
+
+    Path directory = Files.createTempDirectory('bulk')
+
+    def cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    @Unroll
+    def 'Solves every line in order with #threads threads and chunks of #chunkSize bytes'() {
+        given:
+        def lines = []
+        50.times {
+            lines << sudoku
+            lines << '0000' * 4
+            lines << '1120000000000000'
+            lines << '12'
+        }
+        def input = directory.resolve('input.txt')
+        def output = directory.resolve('output.txt')
+        Files.write(input, lines)
+
+        def board = new Board(sudoku)
+        new Solver().solve(board)
+        def expected = []
+        50.times {
+            expected << board.boardString
+            expected << 'MULTIPLE_SOLUTIONS'
+            expected << 'INVALID'
+            expected << 'INVALID'
+        }
+
+        when:
+        new BulkSolver(threads, chunkSize).solve(input, output)
+
+        then:
+        Files.readAllLines(output) == expected
+
+        where:
+        threads | chunkSize
+        1       | BulkSolver.DEFAULT_CHUNK_SIZE
+        4       | 100
+        3       | 82
+    }
+
+    def 'Fails if a line is longer than the chunk size'() {
+        given:
+        def input = directory.resolve('input.txt')
+        Files.write(input, [sudoku, sudoku])
+
+        when:
+        new BulkSolver(2, 50).solve(input, directory.resolve('output.txt'))
+
+        then:
+        thrown IllegalArgumentException
+    }
+}
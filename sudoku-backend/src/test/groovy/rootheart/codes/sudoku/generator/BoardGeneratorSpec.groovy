@@ -0,0 +1,98 @@
+package rootheart.codes.sudoku.generator
+
+import rootheart.codes.sudoku.solver.Solver
+import spock.lang.Specification
+import spock.lang.Timeout
+import spock.lang.Unroll
+
+class BoardGeneratorSpec extends Specification {
+
+    @Unroll
+    def 'Generates #size x #size boards with exactly one solution and #symmetry symmetry'() {
+        given:
+        def generator = new BoardGenerator(size, clues, symmetry)
+        def maxValue = size * size
+
+        when:
+        def board = generator.generate(new Random(42))
+
+        then:
+        new Solver(Solver.Engine.BITBOARD).countSolutions(board, 2) == 1
+        (0..<maxValue * maxValue).every { index ->
+            int row = index.intdiv(maxValue)
+            int column = index % maxValue
+            board.cell(index).empty == board.cell(symmetricIndex(symmetry, maxValue, row, column)).empty
+        }
+
+        where:
+        size | clues | symmetry
+        2    | 0     | BoardGenerator.Symmetry.NONE
+        3    | 0     | BoardGenerator.Symmetry.NONE
+        3    | 0     | BoardGenerator.Symmetry.ROTATIONAL
+        3    | 0     | BoardGenerator.Symmetry.MIRROR
+        3    | 0     | BoardGenerator.Symmetry.DIAGONAL
+        4    | 160   | BoardGenerator.Symmetry.ROTATIONAL
+        5    | 450   | BoardGenerator.Symmetry.NONE
+    }
+
+    def 'Stops removing clues at the target number of clues'() {
+        given:
+        def generator = new BoardGenerator(3, 30, BoardGenerator.Symmetry.NONE)
+
+        when:
+        def board = generator.generate(new Random(7))
+
+        then:
+        board.boardString.count('0') == 81 - 30
+    }
+
+    @Timeout(30)
+    def 'Keeps the clues whose check runs out of nodes'() {
+        given:
+        def generator = new BoardGenerator(5, 0, BoardGenerator.Symmetry.NONE, 1000)
+
+        when:
+        def board = generator.generate(new Random(42))
+
+        then:
+        new Solver(Solver.Engine.BITBOARD).countSolutions(board, 2) == 1
+        board.boardString.count('0') < 625
+    }
+
+    def 'Generates the same board for the same seed'() {
+        given:
+        def generator = new BoardGenerator()
+        generator.generate(new Random(1))
+
+        expect:
+        generator.generate(new Random(3)).boardString == generator.generate(new Random(3)).boardString
+        generator.generate(new Random(3)).boardString != generator.generate(new Random(4)).boardString
+    }
+
+    def 'Generates many different boards in parallel'() {
+        when:
+        def boards = new BoardGenerator().generate(50)
+
+        then:
+        boards.size() == 50
+        boards*.boardString.unique().size() == 50
+        boards.every { new Solver(Solver.Engine.BITBOARD).countSolutions(it, 2) == 1 }
+    }
+
+    def 'Rejects unsupported sizes'() {
+        when:
+        new BoardGenerator(6, 0, BoardGenerator.Symmetry.NONE)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private static int symmetricIndex(BoardGenerator.Symmetry symmetry, int maxValue, int row, int column) {
+        switch (symmetry) {
+            case BoardGenerator.Symmetry.ROTATIONAL: return (maxValue - 1 - row) * maxValue + maxValue - 1 - column
+            case BoardGenerator.Symmetry.MIRROR: return row * maxValue + maxValue - 1 - column
+            case BoardGenerator.Symmetry.DIAGONAL: return column * maxValue + row
+            default: return row * maxValue + column
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package rootheart.codes.sudoku.generator
+
+import rootheart.codes.sudoku.game.Board
+import rootheart.codes.sudoku.solver.Solver
+import spock.lang.Specification
+import spock.lang.Timeout
+import spock.util.concurrent.PollingConditions
+
+class PuzzlePoolSpec extends Specification {
+    PuzzlePool pool = new PuzzlePool(5, 2, 1, 1000)
+    PollingConditions conditions = new PollingConditions(timeout: 30)
+
+    def cleanup() {
+        pool.stop()
+    }
+
+    def 'Fills every bucket in the background'() {
+        when:
+        pool.start()
+
+        then:
+        conditions.eventually {
+            assert pool.statistics.every { it.depth == 5 && it.generated == 5 }
+        }
+    }
+
+    def 'Refills a bucket that drops below the low water mark'() {
+        given:
+        pool.start()
+        conditions.eventually {
+            assert pool.statistics.every { it.depth == 5 }
+        }
+
+        when:
+        def puzzles = (1..4).collect { pool.take(3, Difficulty.EASY) }
+
+        then:
+        puzzles.every { hasUniqueSolution(it) && it.count('0') <= 81 - Difficulty.EASY.cluesFor(3) }
+        conditions.eventually {
+            def easy = pool.statistics.find { it.difficulty == Difficulty.EASY }
+            assert easy.depth == 5
+            assert easy.generated == 9
+            assert easy.taken == 4
+            assert easy.misses == 0
+            assert easy.refillRate > 0
+        }
+    }
+
+    def 'Generates the puzzle on the calling thread if the bucket is empty'() {
+        when:
+        def puzzle = pool.take(3, Difficulty.HARD)
+
+        then:
+        hasUniqueSolution(puzzle)
+        pool.statistics.find { it.difficulty == Difficulty.HARD }.misses == 1
+    }
+
+    def 'Generates puzzles of other sizes on the calling thread'() {
+        when:
+        def puzzle = pool.take(2, Difficulty.MEDIUM)
+
+        then:
+        puzzle.length() == 16
+        hasUniqueSolution(puzzle)
+        pool.statistics.every { it.taken == 0 && it.misses == 0 }
+    }
+
+    @Timeout(30)
+    def 'Generates 25x25 puzzles within the node limit'() {
+        when:
+        def puzzles = Difficulty.values().collect { pool.take(5, it) }
+
+        then:
+        puzzles.every { it.length() == 625 && hasUniqueSolution(it) }
+        puzzles.every { 625 - it.count('0') >= Difficulty.HARD.cluesFor(5) }
+    }
+
+    private static boolean hasUniqueSolution(String puzzle) {
+        new Solver(Solver.Engine.BITBOARD).countSolutions(new Board(puzzle), 2) == 1
+    }
+}
@@ -0,0 +1,77 @@
+package rootheart.codes.sudoku.security
+
+import com.auth0.jwt.JWT
+import com.auth0.jwt.algorithms.Algorithm
+import com.auth0.jwt.exceptions.JWTVerificationException
+import com.github.benmanes.caffeine.cache.Ticker
+import rootheart.codes.sudoku.user.SudokuUser
+import rootheart.codes.sudoku.user.SudokuUserService
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class TokenVerifierSpec extends Specification {
+    def userService = Mock(SudokuUserService)
+    def nanos = 0L
+    def verifier = new TokenVerifier(userService, 10, { nanos } as Ticker)
+
+    def 'Tokens are verified once until they expire'() {
+        given:
+        def token = token(7, 60_000)
+
+        when:
+        def first = verifier.verify(token)
+        def second = verifier.verify(token)
+
+        then:
+        first.is(second)
+        first.id == 7
+        first.username == 'kai'
+        verifier.cacheStatistics.hitCount() == 1
+
+        when:
+        nanos += TimeUnit.MINUTES.toNanos(2)
+        verifier.verify(token)
+
+        then:
+        verifier.cacheStatistics.missCount() == 2
+    }
+
+    def 'Invalid tokens are not remembered'() {
+        given:
+        def forged = JWT.create().withSubject('kai').withClaim(SecurityConstants.USER_ID_CLAIM, 7L)
+                .sign(Algorithm.HMAC512('another secret'))
+
+        when:
+        verifier.verify(forged)
+        then:
+        thrown JWTVerificationException
+
+        when:
+        verifier.verify(forged)
+        then:
+        thrown JWTVerificationException
+        verifier.cacheStatistics.hitCount() == 0
+    }
+
+    def 'Tokens without the user id load the user once'() {
+        given:
+        def token = JWT.create().withSubject('kai')
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60_000))
+                .sign(SecurityConstants.ALGORITHM)
+
+        when:
+        verifier.verify(token)
+        def principal = verifier.verify(token)
+
+        then:
+        1 * userService.loadUserByUsername('kai') >> new SudokuUser(id: 8, username: 'kai')
+        principal.id == 8
+    }
+
+    private static String token(long userId, long expiresInMillis) {
+        JWT.create().withSubject('kai').withClaim(SecurityConstants.USER_ID_CLAIM, userId)
+                .withExpiresAt(new Date(System.currentTimeMillis() + expiresInMillis))
+                .sign(SecurityConstants.ALGORITHM)
+    }
+}
@@ -0,0 +1,52 @@
+package rootheart.codes.sudoku.solver
+
+import rootheart.codes.sudoku.game.Board
+import spock.lang.Specification
+
+class BatchSolverSpec extends Specification {
+    private List<String> boards = [
+            "975002130" + "000600000" + "030500000" + "000006090" + "009000010" + "000005078" + "740200069" + "000003000" + "020760084",
+            "001000000" + "003602008" + "000087400" + "240700080" + "609408000" + "030091000" + "000000000" + "000000602" + "090050730",
+            "002400000" + "000000000" + "900000056" + "000300000" + "000056000" + "009000870" + "500000000" + "000200100" + "300009200",
+            "900000000" + "000700016" + "064000205" + "240080507" + "000076000" + "000000000" + "005130940" + "002008070" + "000007100",
+            "001305900" + "973602508" + "000987400" + "245700189" + "619428300" + "030591200" + "000000800" + "000000602" + "090050730",
+            "0" * 81,
+            "110000000" + "0" * 72,
+            "975842136" + "482631957" + "136597842" + "257186493" + "869374215" + "314925678" + "743218569" + "698453721" + "521769384",
+    ]
+
+    def 'Test that the batch solver reports the same results as the solver'() {
+        when:
+        def results = new BatchSolver().solve(boards * 40)
+
+        then:
+        results.size() == boards.size() * 40
+        results.eachWithIndex { result, index ->
+            assert result.status == expectedResult(boards[index % boards.size()]).status
+            assert result.solution == expectedResult(boards[index % boards.size()]).solution
+        }
+    }
+
+    def 'Test that boards of size 2 are solved in batches'() {
+        when:
+        def results = new BatchSolver().solve(["1234" + "3412" + "2143" + "0000", "1234" + "3412" + "0001" + "0000"])
+
+        then:
+        results*.status == [SolveResult.Status.SOLVED, SolveResult.Status.MULTIPLE_SOLUTIONS]
+        results[0].solution == "1234" + "3412" + "2143" + "4321"
+    }
+
+    private static SolveResult expectedResult(String boardString) {
+        def board = new Board(boardString)
+        try {
+            new Solver().solve(board)
+            return SolveResult.solved(board.boardString)
+        } catch (NoSolutionException e) {
+            return SolveResult.of(SolveResult.Status.NO_SOLUTION)
+        } catch (MultipleSolutionsException e) {
+            return SolveResult.of(SolveResult.Status.MULTIPLE_SOLUTIONS)
+        } catch (BoardInvalidException e) {
+            return SolveResult.of(SolveResult.Status.INVALID)
+        }
+    }
+}
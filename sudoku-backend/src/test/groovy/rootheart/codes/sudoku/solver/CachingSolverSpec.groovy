@@ -0,0 +1,145 @@
+package rootheart.codes.sudoku.solver
+
+import rootheart.codes.sudoku.game.Board
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CachingSolverSpec extends Specification {
+    private static String sudoku = "900000000" +
+            "000700016" +
+            "064000205" +
+            "240080507" +
+            "000076000" +
+            "000000000" +
+            "005130940" +
+            "002008070" +
+            "000007100"
+
+    @Unroll
+    def 'Equivalent boards have the same canonical board after #transformation'() {
+        given:
+        def canonicalizer = new Canonicalizer()
+        def equivalent = transform(sudoku, transformation)
+
+        when:
+        def canonicalForm = canonicalizer.canonicalize(equivalent)
+
+        then:
+        canonicalForm.board == canonicalizer.canonicalize(sudoku).board
+        canonicalForm.toCanonical(equivalent) == canonicalForm.board
+        canonicalForm.fromCanonical(canonicalForm.board) == equivalent
+
+        where:
+        transformation << ['relabel', 'transpose', 'swap bands', 'swap rows', 'swap stacks', 'swap columns', 'all']
+    }
+
+    def 'Boards that are not equivalent have different canonical boards'() {
+        given:
+        def canonicalizer = new Canonicalizer()
+        def other = '0' + sudoku.substring(1)
+
+        expect:
+        canonicalizer.canonicalize(other).board != canonicalizer.canonicalize(sudoku).board
+    }
+
+    def 'Boards larger than 9x9 are only relabelled'() {
+        given:
+        def board = "0" * 17 + "5" + "0" * 238
+
+        when:
+        def canonicalForm = new Canonicalizer().canonicalize(board)
+
+        then:
+        canonicalForm.board == "0" * 17 + "1" + "0" * 238
+        canonicalForm.fromCanonical(canonicalForm.board) == board
+    }
+
+    def 'Equivalent boards are solved from the cache'() {
+        given:
+        def solver = new CachingSolver(new Solver(), 100)
+        def expected = new Board(transform(sudoku, 'all'))
+        new Solver().solve(expected)
+        solver.solve(new Board(sudoku))
+
+        when:
+        def board = new Board(transform(sudoku, 'all'))
+        solver.solve(board)
+
+        then:
+        board.boardString == expected.boardString
+        solver.cacheStatistics.hitCount() == 1
+    }
+
+    def 'Boards that were asked for before are solved from the cache'() {
+        given:
+        def solver = new CachingSolver(new Solver(), 100)
+        def expected = new Board(sudoku)
+        solver.solve(expected)
+
+        when:
+        def board = new Board(sudoku)
+        solver.solve(board)
+
+        then:
+        board.boardString == expected.boardString
+        solver.cacheStatistics.hitCount() == 1
+    }
+
+    def 'Boards with multiple solutions throw from the cache'() {
+        given:
+        def solver = new CachingSolver(new Solver(), 100)
+        def ambiguous = '0' * 27 + sudoku.substring(27)
+
+        when:
+        solver.solve(new Board(ambiguous))
+        then:
+        thrown MultipleSolutionsException
+
+        when:
+        solver.solve(new Board(transform(ambiguous, 'all')))
+        then:
+        thrown MultipleSolutionsException
+        solver.cacheStatistics.hitCount() == 1
+    }
+
+    def 'Invalid boards throw from the cache'() {
+        given:
+        def solver = new CachingSolver(new Solver(), 100)
+        def invalid = "1100" + "0000" + "0000" + "0000"
+
+        when:
+        solver.solve(new Board(invalid))
+        then:
+        thrown BoardInvalidException
+
+        when:
+        solver.solve(new Board(invalid))
+        then:
+        thrown BoardInvalidException
+        solver.cacheStatistics.hitCount() == 1
+    }
+
+    private static String transform(String board, String transformation) {
+        def rows = board.toList().collate(9)
+        if (transformation in ['relabel', 'all']) {
+            def labels = [0: '0', 1: '7', 2: '3', 3: '9', 4: '1', 5: '8', 6: '2', 7: '5', 8: '4', 9: '6']
+            rows = rows.collect { row -> row.collect { labels[it as int] } }
+        }
+        if (transformation in ['transpose', 'all']) {
+            rows = rows.transpose()
+        }
+        if (transformation in ['swap bands', 'all']) {
+            rows = rows[6..8] + rows[3..5] + rows[0..2]
+        }
+        if (transformation in ['swap rows', 'all']) {
+            rows = [rows[1], rows[0]] + rows[2..8]
+        }
+        if (transformation in ['swap stacks', 'all']) {
+            rows = rows.collect { row -> row[0..2] + row[6..8] + row[3..5] }
+        }
+        if (transformation in ['swap columns', 'all']) {
+            rows = rows.collect { row -> row[0..5] + [row[8], row[6], row[7]] }
+        }
+        rows.flatten().join()
+    }
+}
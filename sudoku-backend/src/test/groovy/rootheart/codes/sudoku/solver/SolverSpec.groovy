@@ -2,6 +2,13 @@ package rootheart.codes.sudoku.solver
 
 import rootheart.codes.sudoku.game.Board
 import spock.lang.Specification
+import spock.lang.Unroll
+
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordingFile
+
+import java.nio.file.Files
+import java.util.concurrent.ForkJoinPool
 
 class SolverSpec extends Specification {
     private String mediumSudoku = "975002130" +
@@ -24,43 +31,99 @@ class SolverSpec extends Specification {
             "002008070" +
             "000007100"
 
-    def 'Test the very simplest Sudoku'() {
+    private static String sudoku16x16 = "1000050df000b0g0" +
+            "b0g007100000e806" +
+            "95000000034002a0" +
+            "06000000a0200d00" +
+            "3400020a00c50000" +
+            "000cb06010000090" +
+            "700aed5000000g14" +
+            "6000040g92070000" +
+            "00506c000f004070" +
+            "0g0000200ce00b30" +
+            "dc00008b7010000a" +
+            "8f00700100900e0c" +
+            "004001g00900c60e" +
+            "002000a50e000040" +
+            "00000000007g0009" +
+            "00058e06003f0700"
+
+    private static String sudoku25x25 = "0p00800f0inb030l10e0g0005" +
+            "02h0n0001eg409000000do0f0" +
+            "4000gc7006di00j000b30ae00" +
+            "0lma100kg080p7cfd00o00b2h" +
+            "i0jo00000b1e0amk0040000p0" +
+            "000800d70cij0nf3b001000al" +
+            "m0l00k0040000dp0ifjnb0h30" +
+            "h321b00a0m4500076pcd0njo0" +
+            "j0fn0000b0em00l90k5860000" +
+            "c7006fnoij0h3000elm04850k" +
+            "2100h00g005k8690c0000bf00" +
+            "lg0409080kc0d0000o000e203" +
+            "000i0o00jf00000g0a0450089" +
+            "f00bj301h0m0040859k6ci000" +
+            "k80650i0c000n0o10020m4l0a" +
+            "060000ji07000h0e203000a0g" +
+            "o00hf1m0200a00000800pj0id" +
+            "0i00pnh00o20em100g05k0960" +
+            "a005l00600p7ijdbfno0003e0" +
+            "3e1m0004l0000080007j0h0bn" +
+            "0002oelm000g500c068070000" +
+            "054k00p0987djfiho0n0300m0" +
+            "8000000j00onh2bm30000k054" +
+            "100l3405a0080p0j0idf00n0b" +
+            "dji00b2ho00100e0000k008c0"
+
+    @Unroll
+    def 'Test the very simplest Sudoku with #engine engine'() {
         given:
         def board = new Board("1234" + "3412" + "2143" + "4320")
 
         when:
-        new Solver().solve(board)
+        new Solver(engine).solve(board)
 
         then:
         board.toString() == "1234\n" + "3412\n" + "2143\n" + "4321\n"
+
+        where:
+        engine << Solver.Engine.values()
     }
 
-    def 'Test one very simple Sudoku'() {
+    @Unroll
+    def 'Test one very simple Sudoku with #engine engine'() {
         given:
         def board = new Board("1234" + "3412" + "2143" + "0000")
 
         when:
-        new Solver().solve(board)
+        new Solver(engine).solve(board)
 
         then:
         board.toString() == "1234\n" + "3412\n" + "2143\n" + "4321\n"
+
+        where:
+        engine << Solver.Engine.values()
     }
 
-    def 'Test one very simple but ambiguous Sudoku'() {
+    @Unroll
+    def 'Test one very simple but ambiguous Sudoku with #engine engine'() {
         given:
         def board = new Board("1234" + "3412" + "0001" + "0000")
 
         when:
-        new Solver().solve(board)
+        new Solver(engine).solve(board)
 
         then:
         thrown(MultipleSolutionsException)
+
+        where:
+        engine << Solver.Engine.values()
     }
 
 
-    def 'Test medium Sudoku'() {
+    @Unroll
+    def 'Test medium Sudoku with #engine engine'() {
         given:
-        def solver = new Solver()
+        def solver = new Solver(engine)
 
         when:
         def board = new Board(mediumSudoku)
@@ -77,12 +140,16 @@ class SolverSpec extends Specification {
                 "743218569\n" +
                 "698453721\n" +
                 "521769384\n"
+
+        where:
+        engine << Solver.Engine.values()
     }
 
 
-    def 'Test hard Sudoku'() {
+    @Unroll
+    def 'Test hard Sudoku with #engine engine'() {
         given:
-        def solver = new Solver()
+        def solver = new Solver(engine)
 
         when:
         def board = new Board(
@@ -100,9 +167,13 @@ class SolverSpec extends Specification {
         then:
         noExceptionThrown()
         println board
+
+        where:
+        engine << Solver.Engine.values()
     }
 
-    def 'Test extreme difficult Sudoku'() {
+    @Unroll
+    def 'Test extreme difficult Sudoku with #engine engine'() {
         given:
         def board = new Board("002400000" +
                 "000000000" +
@@ -115,7 +186,7 @@ class SolverSpec extends Specification {
                 "300009200")
 
         when:
-        new Solver().solve(board)
+        new Solver(engine).solve(board)
 
         then:
         noExceptionThrown()
@@ -131,22 +202,30 @@ class SolverSpec extends Specification {
                 "316549287"
 
         println board
+
+        where:
+        engine << Solver.Engine.values()
     }
 
-    def 'Test another extreme difficult Sudoku'() {
+    @Unroll
+    def 'Test another extreme difficult Sudoku with #engine engine'() {
         given:
         def board = new Board(extremeDifficultSudoku)
 
         when:
-        new Solver().solve(board)
+        new Solver(engine).solve(board)
 
         then:
         noExceptionThrown()
         println board
+
+        where:
+        engine << Solver.Engine.values()
     }
 
 
-    def 'Test that a board without a solution is not solved by the solver'() {
+    @Unroll
+    def 'Test that a board without a solution is not solved by the solver with #engine engine'() {
         given:
         def board = new Board("001305900" +
                 "973602508" +
@@ -161,20 +240,181 @@ class SolverSpec extends Specification {
                 "090050730")
 
         when:
-        new Solver().solve(board)
+        new Solver(engine).solve(board)
 
         then:
         thrown NoSolutionException
+
+        where:
+        engine << Solver.Engine.values()
     }
 
-    def 'Test that trying to solve an empty board results in an exception'() {
+    @Unroll
+    def 'Test that trying to solve an empty board results in an exception with #engine engine'() {
         given:
         def board = new Board("0" * 81)
 
         when:
-        new Solver().solve(board)
+        new Solver(engine).solve(board)
 
         then:
         thrown MultipleSolutionsException
+
+        where:
+        engine << Solver.Engine.values()
+    }
+
+    @Unroll
+    def 'Test that a board with duplicate numbers is rejected with #engine engine'() {
+        given:
+        def board = new Board("1100" + "0000" + "0000" + "0000")
+
+        when:
+        new Solver(engine).solve(board)
+
+        then:
+        thrown BoardInvalidException
+
+        where:
+        engine << Solver.Engine.values()
+    }
+
+    def 'Test that the parallel solver finds the same solution'() {
+        given:
+        def board = new Board(extremeDifficultSudoku)
+        def expected = new Board(extremeDifficultSudoku)
+        new Solver(Solver.Engine.BITBOARD).solve(expected)
+
+        when:
+        new Solver(ForkJoinPool.commonPool()).solve(board)
+
+        then:
+        board.boardString == expected.boardString
+    }
+
+    def 'Test that the parallel solver stops at the second solution of an empty board'() {
+        given:
+        def board = new Board("0" * 81)
+
+        when:
+        new Solver(new ForkJoinPool(4)).solve(board)
+
+        then:
+        thrown MultipleSolutionsException
+    }
+
+    @Unroll
+    def 'Test counting #expected solutions with limit #limit with #engine engine'() {
+        given:
+        def board = new Board(boardString)
+
+        when:
+        def count = new Solver(engine).countSolutions(board, limit)
+
+        then:
+        count == expected
+        board.boardString == boardString
+
+        where:
+        [engine, boardString, limit, expected] << Solver.Engine.values().collectMany { engine ->
+            [[engine, "0" * 16, 1000, 288],
+             [engine, "0" * 16, 2, 2],
+             [engine, "1234" + "3412" + "2143" + "4321", 2, 1],
+             [engine, "1234" + "3412" + "2143" + "0000", 2, 1],
+             [engine, "0" * 81, 2, 2],
+             [engine, "001305900" + "973602508" + "000987400" + "245700189" + "619428300" + "030591200" +
+                     "000000800" + "000000602" + "090050730", 2, 0]]
+        }
+    }
+
+    @Unroll
+    def 'Test a #board.maxValue x #board.maxValue Sudoku with #engine engine'() {
+        given:
+        def givens = board.boardString
+
+        when:
+        new Solver(engine).solve(board)
+
+        then:
+        !board.hasEmptyCells()
+        board.valid
+        (0..<givens.length()).every { givens[it] == '0' || givens[it] == board.boardString[it] }
+
+        where:
+        [engine, board] << Solver.Engine.values().collectMany { engine ->
+            [[engine, new Board(sudoku16x16)], [engine, new Board(sudoku25x25)]]
+        }
+    }
+
+    @Unroll
+    def 'Test that solving with statistics reports the search with #description'() {
+        given:
+        def board = new Board(extremeDifficultSudoku)
+        def expected = new Board(extremeDifficultSudoku)
+        new Solver(Solver.Engine.BITBOARD).solve(expected)
+
+        when:
+        def statistics = solver.solveWithStatistics(board)
+
+        then:
+        board.boardString == expected.boardString
+        board.statistics == null
+        statistics.nodes > 0
+        statistics.maxDepth > 0
+        statistics.backtracks < statistics.nodes
+        statistics.propagationRounds > 0
+        Technique.values().every { statistics.getInvocations(it) > 0 }
+        statistics.getEliminations(Technique.NAKED_SINGLE) > 0
+        statistics.getEliminations(Technique.HIDDEN_SINGLE) > 0
+
+        where:
+        description         | solver
+        'sequential search' | new Solver()
+        'parallel search'   | new Solver(new ForkJoinPool(4))
+    }
+
+    def 'Test that propagation rounds and branches are recorded as JFR events'() {
+        given:
+        def recording = new Recording()
+        recording.enable('rootheart.codes.sudoku.Propagation')
+        recording.enable('rootheart.codes.sudoku.Branch')
+        def file = Files.createTempFile('solver', '.jfr')
+
+        when:
+        recording.start()
+        new Solver().solve(new Board(extremeDifficultSudoku))
+        recording.stop()
+        recording.dump(file)
+        def eventNames = RecordingFile.readAllEvents(file)*.eventType*.name as Set
+
+        then:
+        eventNames == ['rootheart.codes.sudoku.Propagation', 'rootheart.codes.sudoku.Branch'] as Set
+
+        cleanup:
+        recording.close()
+        Files.deleteIfExists(file)
+    }
+
+    @Unroll
+    def 'Test that the solution does not depend on the techniques #techniques'() {
+        given:
+        def board = new Board(boardString)
+        board.techniques = techniques
+        def expected = new Board(boardString)
+        new Solver(Solver.Engine.BITBOARD).solve(expected)
+
+        when:
+        new Solver().solve(board)
+
+        then:
+        board.boardString == expected.boardString
+
+        where:
+        boardString | techniques
+        sudoku16x16 | EnumSet.range(Technique.NAKED_SINGLE, Technique.NAKED_TWINS)
+        sudoku16x16 | EnumSet.range(Technique.HIDDEN_PAIRS, Technique.SWORDFISH)
+        sudoku16x16 | EnumSet.allOf(Technique)
+        sudoku25x25 | EnumSet.range(Technique.NAKED_SINGLE, Technique.NAKED_TWINS)
+        sudoku25x25 | EnumSet.allOf(Technique)
     }
 }
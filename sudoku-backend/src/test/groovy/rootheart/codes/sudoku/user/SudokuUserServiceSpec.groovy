@@ -0,0 +1,35 @@
+package rootheart.codes.sudoku.user
+
+import org.springframework.security.core.userdetails.UsernameNotFoundException
+import spock.lang.Specification
+
+class SudokuUserServiceSpec extends Specification {
+    def 'Users are loaded by id only once'() {
+        given:
+        def repository = Mock(SudokuUserRepository)
+        def service = new SudokuUserService(repository, 10)
+        def user = new SudokuUser(id: 7, username: 'kai')
+
+        when:
+        def first = service.getUser(7)
+        def second = service.getUser(7)
+
+        then:
+        1 * repository.findById(7) >> Optional.of(user)
+        first.is(user)
+        second.is(user)
+    }
+
+    def 'Unknown users are not found'() {
+        given:
+        def repository = Mock(SudokuUserRepository)
+        def service = new SudokuUserService(repository, 10)
+        repository.findById(_) >> Optional.empty()
+
+        when:
+        service.getUser(8)
+
+        then:
+        thrown UsernameNotFoundException
+    }
+}